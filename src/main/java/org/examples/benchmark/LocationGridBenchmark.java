@@ -0,0 +1,84 @@
+package org.examples.benchmark;
+
+import org.leaf.location.Location;
+import org.leaf.location.LocationAware;
+import org.leaf.location.LocationGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.examples.smart_city_traffic.Settings.*;
+
+/**
+ * Compares the cost of WiFi range queries on traffic light systems using a linear scan and a {@link LocationGrid}
+ * for increasing numbers of streets per axis.
+ *
+ * The city layout equals the one of the smart city traffic example, queries are issued from random taxi locations.
+ */
+public class LocationGridBenchmark {
+
+    private static final int[] STREETS_PER_AXIS_VALUES = {4, 8, 16, 32, 64, 128};
+    private static final int QUERIES = 100_000;
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);  // US number formatting
+        System.out.println("streets/axis      TLS   linear (ns/query)   grid (ns/query)   speedup");
+        for (int streetsPerAxis : STREETS_PER_AXIS_VALUES) {
+            run(streetsPerAxis);
+        }
+    }
+
+    private static void run(int streetsPerAxis) {
+        double width = (streetsPerAxis + 1) * BLOCK_SIZE_WIDTH;
+        double height = (streetsPerAxis + 1) * BLOCK_SIZE_HEIGHT;
+
+        List<LocationAware> trafficLightSystems = new ArrayList<>();
+        LocationGrid<LocationAware> grid = new LocationGrid<>(WIFI_RANGE);
+        for (int x = 1; x <= streetsPerAxis; x++) {
+            for (int y = 1; y <= streetsPerAxis; y++) {
+                Location location = new Location(x * BLOCK_SIZE_WIDTH, y * BLOCK_SIZE_HEIGHT);
+                LocationAware tls = () -> location;
+                trafficLightSystems.add(tls);
+                grid.add(tls);
+            }
+        }
+
+        Random random = new Random(SEED);
+        Location[] queries = new Location[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new Location(random.nextDouble() * width, random.nextDouble() * height);
+        }
+
+        long linearTime = Long.MAX_VALUE;
+        long gridTime = Long.MAX_VALUE;
+        long linearCount = 0;
+        long gridCount = 0;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            long start = System.nanoTime();
+            linearCount = 0;
+            for (Location query : queries) {
+                for (LocationAware tls : trafficLightSystems) {
+                    if (tls.getLocation().distance(query) <= WIFI_RANGE) linearCount++;
+                }
+            }
+            linearTime = Math.min(linearTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long[] count = {0};
+            for (Location query : queries) {
+                grid.forEachInRange(query, WIFI_RANGE, tls -> count[0]++);
+            }
+            gridCount = count[0];
+            gridTime = Math.min(gridTime, System.nanoTime() - start);
+        }
+        if (linearCount != gridCount) {
+            throw new IllegalStateException("Linear scan found " + linearCount + " results but grid found " + gridCount);
+        }
+
+        System.out.printf("%12d %8d %19.1f %17.1f %8.1fx%n", streetsPerAxis, trafficLightSystems.size(),
+            (double) linearTime / QUERIES, (double) gridTime / QUERIES, (double) linearTime / gridTime);
+    }
+}
@@ -0,0 +1,129 @@
+package org.examples.benchmark;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.models.PowerModelHostSimple;
+import org.leaf.application.Application;
+import org.leaf.application.Task;
+import org.leaf.host.HostLeaf;
+import org.leaf.host.HostUtilizationIndex;
+import org.leaf.infrastructure.ComputeNode;
+import org.leaf.infrastructure.InfrastructureGraph;
+import org.leaf.infrastructure.NetworkLink;
+import org.leaf.placement.Orchestrator;
+import org.leaf.placement.PlacementStrategies;
+import org.leaf.placement.PlacementStrategy;
+import org.leaf.power.PowerModelHostShared;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.examples.smart_city_traffic.Settings.*;
+
+/**
+ * Measures the cost of placing a processing task with each built-in {@link PlacementStrategy} for increasing numbers
+ * of fog nodes, compared to a lookup in the {@link HostUtilizationIndex}.
+ *
+ * The application consists of a source task on a sensor node, a processing task and a sink task in the cloud.
+ * All fog nodes are linked to the sensor node and the cloud with random latencies and have a random utilization.
+ */
+public class PlacementBenchmark {
+
+    private static final int[] FOG_COUNTS = {4, 16, 64, 256, 1024};
+    private static final long PROCESSING_MIPS = 10_000;
+    private static final int PLACEMENTS = 10_000;
+    private static final int REPETITIONS = 5;
+    private static final String[] STRATEGIES = {"spread", "consolidate", "latency", "power"};
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);  // US number formatting
+        CloudSim simulation = new CloudSim();
+        System.out.print("fog nodes");
+        for (String strategy : STRATEGIES) {
+            System.out.printf(" %14s", strategy + " (us)");
+        }
+        System.out.printf(" %14s%n", "index (us)");
+        for (int fogCount : FOG_COUNTS) {
+            run(simulation, fogCount);
+        }
+    }
+
+    private static void run(CloudSim simulation, int fogCount) {
+        Random random = new Random(SEED);
+        InfrastructureGraph graph = new InfrastructureGraph();
+        ComputeNode sensor = new ComputeNode(simulation, 0, new PowerModelHostSimple(0, 0), -1);
+        ComputeNode cloud = new ComputeNode(simulation, CLOUD_MIPS, new PowerModelHostShared(CLOUD_WATT_PER_MIPS), -1);
+        graph.addVertex(sensor);
+        graph.addVertex(cloud);
+        List<ComputeNode> fogNodes = new ArrayList<>();
+        HostUtilizationIndex index = new HostUtilizationIndex(FOG_UTILIZATION_THRESHOLD);
+        for (int i = 0; i < fogCount; i++) {
+            ComputeNode fogNode = new ComputeNode(simulation, FOG_MIPS, new PowerModelHostSimple(FOG_MAX_POWER, FOG_STATIC_POWER), -1);
+            graph.addVertex(fogNode);
+            graph.addLink(new NetworkLink(sensor, fogNode).setBandwidth(WIFI_BANDWIDTH).setLatency(random.nextDouble() * WIFI_LATENCY));
+            graph.addLink(new NetworkLink(fogNode, cloud).setBandwidth(WAN_BANDWIDTH).setLatency(random.nextDouble() * WAN_LATENCY));
+            HostLeaf host = (HostLeaf) fogNode.getHostList().get(0);
+            host.reserveMips(random.nextDouble() * FOG_MIPS);
+            index.add(host);
+            fogNodes.add(fogNode);
+        }
+
+        BenchmarkOrchestrator orchestrator = new BenchmarkOrchestrator(graph);
+        Application application = new Application(simulation, orchestrator);
+        Task processingTask = new Task(PROCESSING_MIPS);
+        application.addSourceTask(new Task(0), 1e3, sensor);
+        application.addProcessingTask(processingTask, 1e3);
+        application.addSinkTask(new Task(0), cloud);
+
+        System.out.printf("%9d", fogCount);
+        for (String name : STRATEGIES) {
+            PlacementStrategy strategy = PlacementStrategies.forName(name).belowUtilization(FOG_UTILIZATION_THRESHOLD);
+            long time = Long.MAX_VALUE;
+            int placedOnFog = 0;
+            for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+                long start = System.nanoTime();
+                placedOnFog = 0;
+                for (int i = 0; i < PLACEMENTS; i++) {
+                    if (orchestrator.select(application, processingTask, fogNodes, strategy) != null) {
+                        placedOnFog++;
+                    }
+                }
+                time = Math.min(time, System.nanoTime() - start);
+            }
+            if (placedOnFog != PLACEMENTS) {
+                throw new IllegalStateException("The " + name + " strategy did not find a fog node.");
+            }
+            System.out.printf(" %14.3f", time / 1000.0 / PLACEMENTS);
+        }
+
+        long time = Long.MAX_VALUE;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < PLACEMENTS; i++) {
+                if (index.getLeastUtilizedBelowThreshold() == null) {
+                    throw new IllegalStateException("The index did not find a fog node.");
+                }
+            }
+            time = Math.min(time, System.nanoTime() - start);
+        }
+        System.out.printf(" %14.3f%n", time / 1000.0 / PLACEMENTS);
+    }
+
+    /**
+     * Exposes the candidate selection of the orchestrator without placing anything.
+     */
+    private static class BenchmarkOrchestrator extends Orchestrator {
+
+        BenchmarkOrchestrator(InfrastructureGraph infrastructureGraph) {
+            super(infrastructureGraph);
+        }
+
+        @Override
+        public void placeApplication(Application application) {}
+
+        ComputeNode select(Application application, Task task, List<ComputeNode> candidates, PlacementStrategy strategy) {
+            return selectComputeNode(application, task, candidates, strategy);
+        }
+    }
+}
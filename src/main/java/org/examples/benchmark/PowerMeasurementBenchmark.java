@@ -0,0 +1,133 @@
+package org.examples.benchmark;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+import org.leaf.host.HostFactory;
+import org.leaf.host.HostLeaf;
+import org.leaf.infrastructure.NetworkLink;
+import org.leaf.power.PowerModelHostShared;
+import org.leaf.power.PowerModelNetworkLink;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.examples.smart_city_traffic.Settings.*;
+
+/**
+ * Compares the cached power measurements of links and hosts with recomputing a new measurement on every sample.
+ *
+ * Between two samples a fraction of all links and hosts changes its reservations, which invalidates their cached
+ * measurements. For every fraction the benchmark reports the allocated bytes and the time per sample of all
+ * links and hosts.
+ */
+public class PowerMeasurementBenchmark {
+
+    private static final int LINKS = 20_000;
+    private static final int HOSTS = 2_000;
+    private static final double[] CHANGE_FRACTIONS = {0, 0.01, 0.1, 1};
+    private static final int SAMPLES = 200;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);  // US number formatting
+        Random random = new Random(SEED);
+        NetworkLink[] links = new NetworkLink[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            links[i] = new NetworkLink(SimEntity.NULL, SimEntity.NULL).setBandwidth(WIFI_BANDWIDTH);
+            links[i].setPowerModel(new PowerModelNetworkLink(WIFI_AP_TO_AP_WATT_PER_BIT));
+            links[i].reserveBandwidth(random.nextDouble() * WIFI_BANDWIDTH / 2);
+        }
+        HostLeaf[] hosts = new HostLeaf[HOSTS];
+        for (int i = 0; i < HOSTS; i++) {
+            hosts[i] = HostFactory.createHost(FOG_MIPS, new PowerModelHostShared(CLOUD_WATT_PER_MIPS));
+            hosts[i].reserveMips(random.nextDouble() * FOG_MIPS / 2);
+        }
+
+        System.out.println("changed    recomputed (B/sample)   cached (B/sample)   recomputed (us/sample)   cached (us/sample)");
+        for (double changeFraction : CHANGE_FRACTIONS) {
+            run(links, hosts, changeFraction, random);
+        }
+    }
+
+    private static void run(NetworkLink[] links, HostLeaf[] hosts, double changeFraction, Random random) {
+        int changedLinks = (int) (LINKS * changeFraction);
+        int changedHosts = (int) (HOSTS * changeFraction);
+        long recomputedBytes = 0;
+        long cachedBytes = 0;
+        long recomputedTime = 0;
+        long cachedTime = 0;
+        double recomputedPower = 0;
+        double cachedPower = 0;
+        // Measurements are kept like the samples of a power meter, so they cannot be optimized away
+        PowerMeasurement[] measurements = new PowerMeasurement[LINKS + HOSTS];
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            for (int i = 0; i < changedLinks; i++) {
+                NetworkLink link = links[random.nextInt(LINKS)];
+                link.reserveBandwidth(1);
+                link.releaseBandwidth(1);
+            }
+            for (int i = 0; i < changedHosts; i++) {
+                HostLeaf host = hosts[random.nextInt(HOSTS)];
+                host.reserveMips(1);
+                host.releaseMips(1);
+            }
+
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            recomputedPower += recompute(links, hosts, measurements);
+            recomputedTime += System.nanoTime() - start;
+            recomputedBytes += allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            cachedPower += measure(links, hosts, measurements);
+            cachedTime += System.nanoTime() - start;
+            cachedBytes += allocatedBytes() - bytes;
+        }
+        if (recomputedPower != cachedPower) {
+            throw new IllegalStateException("Recomputed power is " + recomputedPower + " but cached power is " + cachedPower);
+        }
+        System.out.printf("%6.0f%% %23d %19d %24.1f %20.1f%n", changeFraction * 100, recomputedBytes / SAMPLES,
+            cachedBytes / SAMPLES, recomputedTime / 1000.0 / SAMPLES, cachedTime / 1000.0 / SAMPLES);
+    }
+
+    /**
+     * Computes a new measurement for every link and host as the power models did before caching
+     */
+    private static double recompute(NetworkLink[] links, HostLeaf[] hosts, PowerMeasurement[] measurements) {
+        for (int i = 0; i < LINKS; i++) {
+            NetworkLink link = links[i];
+            measurements[i] = new PowerMeasurement(0, link.getPowerModel().getEnergyPerBit() * link.getUsedBandwidth());
+        }
+        for (int i = 0; i < HOSTS; i++) {
+            HostLeaf host = hosts[i];
+            PowerModelHostShared powerModel = (PowerModelHostShared) host.getPowerModel();
+            measurements[LINKS + i] = host.isActive()
+                ? new PowerMeasurement(0, host.getCpuMipsUtilization() * powerModel.getWattPerMips())
+                : new PowerMeasurement();
+        }
+        return totalPower(measurements);
+    }
+
+    private static double measure(NetworkLink[] links, HostLeaf[] hosts, PowerMeasurement[] measurements) {
+        for (int i = 0; i < LINKS; i++) {
+            measurements[i] = links[i].getPowerModel().getPowerMeasurement();
+        }
+        for (int i = 0; i < HOSTS; i++) {
+            measurements[LINKS + i] = hosts[i].getPowerModel().getPowerMeasurement();
+        }
+        return totalPower(measurements);
+    }
+
+    private static double totalPower(PowerMeasurement[] measurements) {
+        double power = 0;
+        for (PowerMeasurement measurement : measurements) {
+            power += measurement.getTotalPower();
+        }
+        return power;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,235 @@
+package org.examples.benchmark;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.Simulation;
+import org.cloudbus.cloudsim.power.models.PowerModelHostSimple;
+import org.leaf.host.HostFactory;
+import org.leaf.host.HostLeaf;
+import org.leaf.host.HostUtilizationIndex;
+import org.leaf.infrastructure.NetworkLink;
+import org.leaf.power.EnergyMeter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.examples.smart_city_traffic.Settings.FOG_MAX_POWER;
+import static org.examples.smart_city_traffic.Settings.FOG_STATIC_POWER;
+import static org.examples.smart_city_traffic.Settings.FOG_UTILIZATION_THRESHOLD;
+import static org.examples.smart_city_traffic.Settings.SEED;
+
+/**
+ * Measures the cost of reserving and releasing bandwidth on network links and MIPS on hosts.
+ *
+ * The uncontended part compares the concurrent reservation of {@link NetworkLink} with a plain read-modify-write
+ * on a double field. The contended part measures the throughput of threads reserving and releasing bandwidth on a
+ * shared pool of links and MIPS on a shared pool of hosts, once with all threads hitting the same element and once
+ * spread over many. Like fog hosts, the hosts are part of a {@link HostUtilizationIndex}, which is queried after
+ * every run. The hosts are measured once more with an {@link EnergyMeter} listening to their power changes.
+ * Afterwards all links and hosts must have nothing reserved, otherwise reservations were lost, and the meter must
+ * agree with the power of the hosts, otherwise notifications were lost.
+ *
+ * At least two threads are always run, so contention is also measured on machines with a single core.
+ */
+public class ReservationBenchmark {
+
+    private static final int UNCONTENDED_OPERATIONS = 10_000_000;
+    private static final int UNCONTENDED_LINKS = 64;
+    private static final int CONTENDED_OPERATIONS = 2_000_000;
+    private static final int[] POOL_SIZES = {1, 64};
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        Locale.setDefault(Locale.US);  // US number formatting
+        runUncontended();
+        System.out.println();
+        System.out.println("resource  pool  threads   throughput (Mops/s)");
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int poolSize : POOL_SIZES) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                runContendedLinks(poolSize, threads);
+            }
+        }
+        for (boolean metered : new boolean[]{false, true}) {
+            for (int poolSize : POOL_SIZES) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    runContendedHosts(poolSize, threads, metered);
+                }
+            }
+        }
+    }
+
+    private static void runUncontended() {
+        PlainLink[] plainLinks = new PlainLink[UNCONTENDED_LINKS];
+        NetworkLink[] links = new NetworkLink[UNCONTENDED_LINKS];
+        for (int i = 0; i < UNCONTENDED_LINKS; i++) {
+            plainLinks[i] = new PlainLink(UNCONTENDED_OPERATIONS);
+            links[i] = new NetworkLink(SimEntity.NULL, SimEntity.NULL).setBandwidth(UNCONTENDED_OPERATIONS);
+        }
+        // Random link indices keep the JIT from collapsing the plain loop into a single addition
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[] indices = new int[UNCONTENDED_OPERATIONS];
+        for (int i = 0; i < UNCONTENDED_OPERATIONS; i++) {
+            indices[i] = random.nextInt(UNCONTENDED_LINKS);
+        }
+
+        long plainTime = Long.MAX_VALUE;
+        long linkTime = Long.MAX_VALUE;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            long start = System.nanoTime();
+            for (int index : indices) {
+                plainLinks[index].reserveBandwidth(1);
+            }
+            for (int index : indices) {
+                plainLinks[index].releaseBandwidth(1);
+            }
+            plainTime = Math.min(plainTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int index : indices) {
+                links[index].reserveBandwidth(1);
+            }
+            for (int index : indices) {
+                links[index].releaseBandwidth(1);
+            }
+            linkTime = Math.min(linkTime, System.nanoTime() - start);
+        }
+        for (int i = 0; i < UNCONTENDED_LINKS; i++) {
+            if (plainLinks[i].usedBandwidth != 0 || links[i].getUsedBandwidth() != 0) {
+                throw new IllegalStateException("Bandwidth is still reserved after releasing all reservations");
+            }
+        }
+        System.out.println("uncontended   plain (ns/op)   atomic (ns/op)");
+        System.out.printf("%28.2f %16.2f%n", plainTime / 2.0 / UNCONTENDED_OPERATIONS,
+            linkTime / 2.0 / UNCONTENDED_OPERATIONS);
+    }
+
+    private static void runContendedLinks(int poolSize, int threads) throws InterruptedException {
+        List<NetworkLink> links = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            links.add(new NetworkLink(SimEntity.NULL, SimEntity.NULL).setBandwidth((double) threads * CONTENDED_OPERATIONS));
+        }
+        double operations = runContended(threads, random -> {
+            NetworkLink link = links.get(random.nextInt(poolSize));
+            link.reserveBandwidth(1);
+            link.releaseBandwidth(1);
+        });
+        for (NetworkLink link : links) {
+            if (link.getUsedBandwidth() != 0) {
+                throw new IllegalStateException("Lost reservations: " + link);
+            }
+        }
+        System.out.printf("%8s %5d %8d %21.1f%n", "links", poolSize, threads, operations);
+    }
+
+    private static void runContendedHosts(int poolSize, int threads, boolean metered) throws InterruptedException {
+        List<HostLeaf> hosts = new ArrayList<>();
+        HostUtilizationIndex index = new HostUtilizationIndex(FOG_UTILIZATION_THRESHOLD);
+        EnergyMeter meter = new EnergyMeter(Simulation.NULL);
+        for (int i = 0; i < poolSize; i++) {
+            HostLeaf host = HostFactory.createHost((long) threads * CONTENDED_OPERATIONS, new PowerModelHostSimple(FOG_MAX_POWER, FOG_STATIC_POWER));
+            index.add(host);
+            hosts.add(host);
+            if (metered) {
+                meter.add(host);
+            }
+        }
+        double operations = runContended(threads, random -> {
+            HostLeaf host = hosts.get(random.nextInt(poolSize));
+            host.reserveMips(1);
+            host.releaseMips(1);
+        });
+        for (HostLeaf host : hosts) {
+            if (host.getCpuMipsUtilization() != 0) {
+                throw new IllegalStateException("Lost reservations: " + host);
+            }
+        }
+        if (index.getLeastUtilizedBelowThreshold() != hosts.get(0)) {
+            throw new IllegalStateException("The utilization index did not pick up all changes.");
+        }
+        if (metered) {
+            double power = 0;
+            for (HostLeaf host : hosts) {
+                power += host.getPowerModel().getPowerMeasurement().getTotalPower();
+            }
+            if (Math.abs(meter.getPower().getTotalPower() - power) > 1e-6 * power) {
+                throw new IllegalStateException("The energy meter missed power changes: " + meter.getPower() + " instead of " + power + " W.");
+            }
+        }
+        System.out.printf("%8s %5d %8d %21.1f%n", metered ? "metered" : "hosts", poolSize, threads, operations);
+    }
+
+    /**
+     * Runs a reservation and release on each thread and returns the best throughput in million operations per second.
+     */
+    private static double runContended(int threads, Consumer<SplittableRandom> reserveAndRelease) throws InterruptedException {
+        int operationsPerThread = CONTENDED_OPERATIONS / threads;
+        long bestTime = Long.MAX_VALUE;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(SEED + t);
+                Thread worker = new Thread(() -> {
+                    awaitUninterruptibly(startSignal);
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        reserveAndRelease.accept(random);
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            long start = System.nanoTime();
+            startSignal.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+        }
+        double operations = 2.0 * operationsPerThread * threads;
+        return operations / (bestTime / 1000.0);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // retry
+            }
+        }
+    }
+
+    /**
+     * Reservation as it was implemented before it was made safe for concurrent use
+     */
+    private static class PlainLink {
+
+        private final double bandwidth;
+        private double usedBandwidth = 0;
+
+        PlainLink(double bandwidth) {
+            this.bandwidth = bandwidth;
+        }
+
+        boolean reserveBandwidth(double reserveBw) {
+            if (usedBandwidth + reserveBw > bandwidth) {
+                return false;
+            }
+            usedBandwidth = usedBandwidth + reserveBw;
+            return true;
+        }
+
+        void releaseBandwidth(double releaseBw) {
+            double newUsedBandwidth = usedBandwidth - releaseBw;
+            if (newUsedBandwidth < 0) {
+                throw new RuntimeException("Cannot release more bandwidth than is reserved");
+            }
+            usedBandwidth = newUsedBandwidth;
+        }
+    }
+}
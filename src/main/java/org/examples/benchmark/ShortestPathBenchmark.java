@@ -0,0 +1,157 @@
+package org.examples.benchmark;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimEntity;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.Simulation;
+import org.cloudbus.cloudsim.core.events.SimEvent;
+import org.jgrapht.GraphPath;
+import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
+import org.jgrapht.graph.DirectedWeightedMultigraph;
+import org.leaf.infrastructure.CsrGraph;
+import org.leaf.infrastructure.NetworkLink;
+import org.leaf.location.Location;
+import org.leaf.location.LocationAware;
+import org.leaf.location.LocationGrid;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.examples.smart_city_traffic.Settings.*;
+
+/**
+ * Compares shortest path queries on the jgrapht graph with the {@link CsrGraph} backend for increasing city sizes.
+ *
+ * The topology resembles the smart city traffic example: Traffic light systems are linked to their neighbors in WiFi
+ * range and to a cloud data center via WAN, taxis are linked to all traffic light systems in range. Queries are issued
+ * from random taxis to random traffic light systems and bypass the path cache of the infrastructure graph.
+ */
+public class ShortestPathBenchmark {
+
+    private static final int[] STREETS_PER_AXIS_VALUES = {8, 16, 32, 64, 100};
+    private static final int TAXIS_PER_TLS = 4;
+    private static final int QUERIES = 2_000;
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);  // US number formatting
+        CloudSim simulation = new CloudSim();
+        System.out.println("streets/axis      TLS    links   jgrapht (us/query)   CSR (us/query)   speedup   CSR build (ms)");
+        for (int streetsPerAxis : STREETS_PER_AXIS_VALUES) {
+            run(simulation, streetsPerAxis);
+        }
+    }
+
+    private static void run(Simulation simulation, int streetsPerAxis) {
+        Random random = new Random(SEED);
+        DirectedWeightedMultigraph<SimEntity, NetworkLink> graph = new DirectedWeightedMultigraph<>(NetworkLink.class);
+        Set<SimEntity> taxis = new HashSet<>();
+
+        Node cloud = new Node(simulation, Location.NULL);
+        graph.addVertex(cloud);
+        List<Node> trafficLightSystems = new ArrayList<>();
+        LocationGrid<Node> grid = new LocationGrid<>(WIFI_RANGE);
+        for (int x = 1; x <= streetsPerAxis; x++) {
+            for (int y = 1; y <= streetsPerAxis; y++) {
+                Node tls = new Node(simulation, new Location(x * BLOCK_SIZE_WIDTH, y * BLOCK_SIZE_HEIGHT));
+                graph.addVertex(tls);
+                addLink(graph, tls, cloud, WAN_LATENCY);
+                addLink(graph, cloud, tls, WAN_LATENCY);
+                grid.forEachInRange(tls.getLocation(), WIFI_RANGE, neighbor -> {
+                    addLink(graph, tls, neighbor, WIFI_LATENCY);
+                    addLink(graph, neighbor, tls, WIFI_LATENCY);
+                });
+                trafficLightSystems.add(tls);
+                grid.add(tls);
+            }
+        }
+        double width = (streetsPerAxis + 1) * BLOCK_SIZE_WIDTH;
+        double height = (streetsPerAxis + 1) * BLOCK_SIZE_HEIGHT;
+        List<Node> taxiList = new ArrayList<>();
+        for (int i = 0; i < trafficLightSystems.size() * TAXIS_PER_TLS; i++) {
+            Node taxi = new Node(simulation, new Location(random.nextDouble() * width, random.nextDouble() * height));
+            graph.addVertex(taxi);
+            grid.forEachInRange(taxi.getLocation(), WIFI_RANGE, tls -> addLink(graph, taxi, tls, WIFI_LATENCY));
+            taxis.add(taxi);
+            taxiList.add(taxi);
+        }
+
+        long buildTime = System.nanoTime();
+        CsrGraph csrGraph = new CsrGraph(graph, taxis::contains);
+        csrGraph.getDelay(cloud, cloud);  // triggers the initial CSR build
+        buildTime = System.nanoTime() - buildTime;
+
+        Node[] sources = new Node[QUERIES];
+        Node[] targets = new Node[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            sources[i] = taxiList.get(random.nextInt(taxiList.size()));
+            targets[i] = trafficLightSystems.get(random.nextInt(trafficLightSystems.size()));
+        }
+
+        long jgraphtTime = Long.MAX_VALUE;
+        long csrTime = Long.MAX_VALUE;
+        double jgraphtWeight = 0;
+        double csrWeight = 0;
+        for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+            long start = System.nanoTime();
+            jgraphtWeight = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                jgraphtWeight += weight(new DijkstraShortestPath<>(graph).getPath(sources[i], targets[i]));
+            }
+            jgraphtTime = Math.min(jgraphtTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            csrWeight = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                csrWeight += weight(csrGraph.getPath(sources[i], targets[i]));
+            }
+            csrTime = Math.min(csrTime, System.nanoTime() - start);
+        }
+        if (jgraphtWeight != csrWeight) {
+            throw new IllegalStateException("jgrapht paths have a total weight of " + jgraphtWeight + " but CSR paths of " + csrWeight);
+        }
+
+        System.out.printf("%12d %8d %8d %20.1f %16.1f %8.1fx %16.1f%n", streetsPerAxis, trafficLightSystems.size(),
+            graph.edgeSet().size(), jgraphtTime / 1000.0 / QUERIES, csrTime / 1000.0 / QUERIES,
+            (double) jgraphtTime / csrTime, buildTime / 1e6);
+    }
+
+    private static void addLink(DirectedWeightedMultigraph<SimEntity, NetworkLink> graph, SimEntity src, SimEntity dst, double latency) {
+        NetworkLink link = new NetworkLink(src, dst);
+        link.setLatency(latency);
+        graph.addEdge(src, dst, link);
+        graph.setEdgeWeight(link, latency);
+    }
+
+    private static double weight(GraphPath<SimEntity, NetworkLink> path) {
+        return path == null ? -1 : path.getWeight();
+    }
+
+    /**
+     * Minimal located entity, the benchmark does not run the simulation
+     */
+    private static class Node extends CloudSimEntity implements LocationAware {
+
+        private final Location location;
+
+        Node(Simulation simulation, Location location) {
+            super(simulation);
+            this.location = location;
+        }
+
+        @Override
+        protected void startInternal() {}
+
+        @Override
+        public void processEvent(SimEvent evt) {}
+
+        @Override
+        public Location getLocation() {
+            return location;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.leaf.infrastructure.ComputeNode;
 import org.leaf.infrastructure.InfrastructureGraph;
 import org.leaf.infrastructure.NetworkLink;
 import org.leaf.placement.Orchestrator;
+import org.leaf.power.EnergyRollup;
 import org.leaf.power.PowerModelHostShared;
 import org.leaf.power.PowerModelNetworkLink;
 
@@ -63,6 +64,12 @@ public class Main {
         PowerMeter applicationPowerMeter = new PowerMeter(simulation, application);
         PowerMeter infrastructurePowerMeter = new PowerMeter(simulation,
                 List.of(sensorNode, fogNode, cloudNode, wifiLink, wanLink));
+        EnergyRollup infrastructureEnergy = new EnergyRollup(simulation, "infrastructure");
+        infrastructureEnergy.child("edge", "sensor").add(sensorNode);
+        infrastructureEnergy.child("edge", "fog").add(fogNode);
+        infrastructureEnergy.child("edge", "wifi").add(wifiLink);
+        infrastructureEnergy.child("cloud", "wan").add(wanLink);
+        infrastructureEnergy.child("cloud", "cloud").add(cloudNode);
 
         simulation.terminateAt(1);
         simulation.start();
@@ -72,6 +79,9 @@ public class Main {
         System.out.println("Sensor Node: " + sensorNodePowerMeter.getPowerMeasurements().get(0).getTotalPower() + " W");
         System.out.println("Application: " + applicationPowerMeter.getPowerMeasurements().get(0).getTotalPower() + " W");
         System.out.println("Infrastructure: " + infrastructurePowerMeter.getPowerMeasurements().get(0).getTotalPower() + " W");
+        for (EnergyRollup node : infrastructureEnergy.getNodes()) {
+            System.out.println("Energy of " + node.getPath() + ": " + node.getEnergy() + " J");
+        }
 	}
 
 }
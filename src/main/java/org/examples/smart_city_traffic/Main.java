@@ -2,21 +2,26 @@ package org.examples.smart_city_traffic;
 
 import org.examples.smart_city_traffic.city.City;
 import org.examples.smart_city_traffic.infrastructure.InfrastructureGraphCity;
-import org.examples.smart_city_traffic.infrastructure.Taxi;
-import org.examples.smart_city_traffic.infrastructure.TrafficLightSystem;
 import org.examples.smart_city_traffic.mobility.MobilityManager;
+import org.examples.smart_city_traffic.placement.OrchestratorCity;
 import org.examples.smart_city_traffic.util.CsvExporter;
 import org.examples.smart_city_traffic.visualization.Visualizer;
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.power.PowerMeter;
 import org.cloudsimplus.util.Log;
 import org.leaf.host.HostFactory;
+import org.leaf.placement.PlacementOptimizer;
+import org.leaf.power.EnergyRollup;
+import org.leaf.power.PowerGroup;
+import org.leaf.power.PowerMeterLeaf;
+import org.leaf.power.PowerSeries;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Locale;
 
-import static java.util.stream.Collectors.toList;
 import static org.examples.smart_city_traffic.Settings.*;
 
 
@@ -49,21 +54,27 @@ public class Main {
         MobilityManager mm = new MobilityManager(simulation, city);
         InfrastructureGraphCity nt = city.getInfrastructureGraph();
 
-        PowerMeter cloud = new PowerMeter(simulation, city.getCloudDc()).setName("cloud");
-        PowerMeter fog = new PowerMeter(simulation, nt.getFogDcs()).setName("fog");
-        PowerMeter wifi = new PowerMeter(simulation, nt::getWifiLinks).setName("wifi");
-        PowerMeter wanUp = new PowerMeter(simulation, nt::getWanUpLinks).setName("wanUp");
-        PowerMeter wanDown = new PowerMeter(simulation, nt::getWanDownLinks).setName("wanDown");
-        PowerMeter cctvApp = new PowerMeter(simulation, () -> nt.getTraficLightSystems().stream().map(TrafficLightSystem::getApplication).collect(toList())).setName("cctv");
-        PowerMeter v2iApp = new PowerMeter(simulation, () -> nt.getTaxis().stream().map(Taxi::getApplication).collect(toList())).setName("v2i");
-
-        cloud.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        fog.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        wifi.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        wanUp.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        wanDown.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        cctvApp.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
-        v2iApp.setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
+        String powerSeriesPath = RESULTS_PATH != null && MEMORY_MAPPED_POWER_MEASUREMENTS ? RESULTS_PATH + "/" + experimentName : null;
+        PowerMeterLeaf cloud = createPowerMeter(simulation, "cloud", nt.getCloudDcGroup(), powerSeriesPath);
+        PowerMeterLeaf fog = createPowerMeter(simulation, "fog", nt.getFogDcGroup(), powerSeriesPath);
+        PowerMeterLeaf wifi = createPowerMeter(simulation, "wifi", nt.getWifiLinkGroup(), powerSeriesPath);
+        PowerMeterLeaf wanUp = createPowerMeter(simulation, "wanUp", nt.getWanUpLinkGroup(), powerSeriesPath);
+        PowerMeterLeaf wanDown = createPowerMeter(simulation, "wanDown", nt.getWanDownLinkGroup(), powerSeriesPath);
+        PowerMeterLeaf cctvApp = createPowerMeter(simulation, "cctv", nt.getCctvApplicationGroup(), powerSeriesPath);
+        PowerMeterLeaf v2iApp = createPowerMeter(simulation, "v2i", nt.getV2iApplicationGroup(), powerSeriesPath);
+        if (ENERGY_REGIONS_PER_AXIS > 0) {
+            nt.setEnergyRollup(new EnergyRollup(simulation, "infrastructure"));
+        }
+
+        if (PLACEMENT_OPTIMIZATION_INTERVAL > 0) {
+            OrchestratorCity orchestrator = (OrchestratorCity) city.getOrchestrator();
+            new PlacementOptimizer(simulation, nt, nt.getFogDcs(), orchestrator.getPlacementStrategy())
+                .setOptimizationInterval(PLACEMENT_OPTIMIZATION_INTERVAL)
+                .setMigrationCost(MIGRATION_COST)
+                .setMaxEvaluations(PLACEMENT_OPTIMIZATION_MAX_EVALUATIONS)
+                .addApplications(nt.getCctvApplicationGroup().getMembers())
+                .addApplications(nt.getV2iApplicationGroup().getMembers());
+        }
 
         if (VISUALIZATION_REDRAW_INTERVAL > 0) {
             new Visualizer(experimentName, simulation, city, mm, List.of(cloud, fog, wifi, wanUp, wanDown), List.of(cctvApp, v2iApp), TIME_STEP_INTERVAL, SIMULATION_TIME);
@@ -76,6 +87,9 @@ public class Main {
             System.out.println("Writing results...");
             CsvExporter.write(RESULTS_PATH + "/" + experimentName + "/infrastructure.csv", mm, List.of(cloud, fog, wifi, wanUp, wanDown));
             CsvExporter.write(RESULTS_PATH + "/" + experimentName + "/applications.csv", mm, List.of(cctvApp, v2iApp));
+            if (nt.getEnergyRollup() != null) {
+                CsvExporter.writeEnergy(RESULTS_PATH + "/" + experimentName + "/energy.csv", nt.getEnergyRollup().getNodes());
+            }
         }
 
         System.out.println("Experiment " + experimentName + " finished!");
@@ -85,6 +99,22 @@ public class Main {
         System.out.println("PMs created:    " + HostFactory.createdEntities());
 	}
 
+    /**
+     * Creates a power meter for a group whose measurements are kept on the heap or, if a path is given, memory-mapped
+     * to a file.
+     */
+    private static PowerMeterLeaf createPowerMeter(CloudSim simulation, String name, PowerGroup<?> group, String powerSeriesPath) {
+        PowerMeterLeaf powerMeter = new PowerMeterLeaf(simulation, name, group).setMeasurementInterval(POWER_MEASUREMENT_INTERVAL);
+        if (powerSeriesPath != null) {
+            try {
+                powerMeter.setPowerSeries(PowerSeries.mapped(Paths.get(powerSeriesPath, name + ".power")));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create power measurement file for " + name + ".", e);
+            }
+        }
+        return powerMeter;
+    }
+
     private static String determineExperimentName(int numFogDcs) {
         String experimentName;
         if (numFogDcs <= 0) {
@@ -25,6 +25,7 @@ public class Settings {
     public static final double TIME_STEP_INTERVAL = 1;
     public static final double POWER_MEASUREMENT_INTERVAL = 1;
     public static final double WIFI_REALLOCATION_INTERVAL = 60;
+    public static final boolean MEMORY_MAPPED_POWER_MEASUREMENTS = false;  // keeps power measurements in files in the results directory instead of on the heap, for very long or fine-grained runs
 
     // City scenario parameters
     public static final int STREETS_PER_AXIS = 4;
@@ -32,6 +33,7 @@ public class Settings {
     public static final double BLOCK_SIZE_HEIGHT = 80;  // Manhattan
     public static final double CITY_WIDTH = (STREETS_PER_AXIS + 1) * BLOCK_SIZE_WIDTH;
     public static final double CITY_HEIGHT = (STREETS_PER_AXIS + 1) * BLOCK_SIZE_HEIGHT;
+    public static final int ENERGY_REGIONS_PER_AXIS = 2;  // regions per axis of the energy breakdown exported to energy.csv; <=0 disables the breakdown
 
     // Taxi generation rate and speed distribution according to 2015 DEBS Grand Challenge dataset
     public static final double MAX_CARS_PER_MINUTE = 50;
@@ -43,6 +45,11 @@ public class Settings {
     public static final double FOG_STATIC_POWER = 100;
     public static final double FOG_MAX_POWER = 240;
     public static final double FOG_UTILIZATION_THRESHOLD = 0.85;
+    public static final boolean BATCH_ADMISSION = false;  // admits all applications that start at the same time together in a later event of the same time step
+    public static final String PLACEMENT_STRATEGY = System.getProperty("placementStrategy");  // spread, consolidate, latency or power, e.g. -DplacementStrategy=latency; unset places by FOG_SHUTDOWN_DEADLINE without checking that the task fits
+    public static final double PLACEMENT_OPTIMIZATION_INTERVAL = -1;  // in simulated seconds; <=0 disables the periodic re-optimization of processing task placements
+    public static final int PLACEMENT_OPTIMIZATION_MAX_EVALUATIONS = 10000;  // placements scored per re-optimization; <=0 evaluates all applications in every re-optimization
+    public static final double MIGRATION_COST = 0.05;  // score improvement required to migrate a task, in units of the placement strategy
 
     public static final long CLOUD_MIPS = Long.MAX_VALUE;
     public static final double CLOUD_WATT_PER_MIPS = 700e-6;
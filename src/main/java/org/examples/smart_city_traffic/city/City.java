@@ -129,6 +129,7 @@ public class City {
      */
     private void initInfrastructureGraph(CloudSim simulation, int numFogDcs) {
         simulation.setNetworkTopology(infrastructureGraph);
+        infrastructureGraph.beginBatch();
         infrastructureGraph.addCloudDc(cloudDc);
 
         for (Location trafficLightLocation : trafficLightLocations) {
@@ -141,6 +142,7 @@ public class City {
             DatacenterFog fogDc = new DatacenterFog(simulation, fogDcLocation, FOG_SHUTDOWN_DEADLINE);
             infrastructureGraph.addFogDc(fogDc);
         }
+        infrastructureGraph.commit();
     }
 
     public Orchestrator getOrchestrator() {
@@ -1,42 +1,89 @@
 package org.examples.smart_city_traffic.infrastructure;
 
-import org.cloudbus.cloudsim.core.CloudSimEntity;
 import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.hosts.Host;
+import org.leaf.application.Application;
+import org.leaf.host.HostLeaf;
+import org.leaf.host.HostUtilizationIndex;
 import org.leaf.infrastructure.ComputeNode;
 import org.leaf.infrastructure.InfrastructureGraph;
 import org.leaf.infrastructure.NetworkLink;
+import org.leaf.location.Location;
+import org.leaf.location.LocationGrid;
+import org.leaf.power.EnergyRollup;
+import org.leaf.power.PowerGroup;
+import org.leaf.util.Registry;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import static org.examples.smart_city_traffic.Settings.CITY_HEIGHT;
+import static org.examples.smart_city_traffic.Settings.CITY_WIDTH;
+import static org.examples.smart_city_traffic.Settings.ENERGY_REGIONS_PER_AXIS;
+import static org.examples.smart_city_traffic.Settings.FOG_UTILIZATION_THRESHOLD;
 import static org.examples.smart_city_traffic.Settings.WIFI_RANGE;
 
 /**
  * Infrastructure graph that allows adding cloud and fog data centers, traffic light systems and taxis
  * and directly links them together with the correct NetworkLinks.
+ *
+ * Entities and links are additionally kept in per-type registries, so the getters do not have to scan the graph.
+ * Data centers, links and applications whose power is measured are kept in {@link PowerGroup power groups}, which
+ * are updated whenever taxis or links are added or removed. The same members can be accounted to an
+ * {@link EnergyRollup} by region and type, see {@link #setEnergyRollup(EnergyRollup)}.
  */
 public class InfrastructureGraphCity extends InfrastructureGraph {
 
+    private final PowerGroup<DatacenterCloud> cloudDcs = new PowerGroup<>();
+    private final PowerGroup<DatacenterFog> fogDcs = new PowerGroup<>();
+    private final HostUtilizationIndex fogHostIndex = new HostUtilizationIndex(FOG_UTILIZATION_THRESHOLD);
+    private final Registry<TrafficLightSystem> trafficLightSystems = new Registry<>();
+    private final Registry<Taxi> taxis = new Registry<>();  // Taxis are only registered once they started
+    private final PowerGroup<NetworkLinkWifi> wifiLinks = new PowerGroup<>();
+    private final PowerGroup<NetworkLinkWanUp> wanUpLinks = new PowerGroup<>();
+    private final PowerGroup<NetworkLinkWanDown> wanDownLinks = new PowerGroup<>();
+    private final PowerGroup<Application> cctvApplications = new PowerGroup<>();
+    private final PowerGroup<Application> v2iApplications = new PowerGroup<>();
+    private final LocationGrid<TrafficLightSystem> trafficLightSystemGrid = new LocationGrid<>(WIFI_RANGE);
+    private final Map<Taxi, Set<TrafficLightSystem>> taxiCoverage = new HashMap<>();  // Traffic light systems a taxi is linked to
+    private EnergyRollup energyRollup = null;
+
     /**
      * Cloud data centers are connected to other data centers
      */
     public void addCloudDc(DatacenterCloud cloudDc) {
-        getGraph().addVertex(cloudDc);
+        addVertex(cloudDc);
+        cloudDcs.add(cloudDc);
+        if (energyRollup != null) {
+            getEnergyNode(cloudDc, "cloud").add(cloudDc);
+        }
     }
 
     /**
      * Fog data centers are connected to a traffic light system via Ethernet (no power usage)
      */
     public void addFogDc(DatacenterFog fogDc) {
-        getGraph().addVertex(fogDc);
+        beginBatch();
+        addVertex(fogDc);
+        fogDcs.add(fogDc);
+        if (energyRollup != null) {
+            getEnergyNode(fogDc, "fog").add(fogDc);
+        }
+        for (Host host : fogDc.getHostList()) {
+            fogHostIndex.add((HostLeaf) host);
+        }
         for (TrafficLightSystem _tls : getTlsInRange(fogDc)) {
             if (fogDc.getLocation().equals(_tls.getLocation())) {
                 addLink(new NetworkLinkEthernet(fogDc, _tls));
                 addLink(new NetworkLinkEthernet(_tls, fogDc));
             }
         }
+        commit();
     }
 
     /**
@@ -46,17 +93,25 @@ public class InfrastructureGraphCity extends InfrastructureGraph {
      * @see #update()
      */
     public void addCar(Taxi taxi) {
-        getGraph().addVertex(taxi);
-        for (TrafficLightSystem _tls : getTlsInRange(taxi)) {
+        beginBatch();
+        addVertex(taxi);
+        Set<TrafficLightSystem> tlsInRange = getTlsInRange(taxi);
+        for (TrafficLightSystem _tls : tlsInRange) {
             addLink(new NetworkLinkWifiTaxiToAp(taxi, _tls));
         }
+        taxiCoverage.put(taxi, tlsInRange);
+        commit();
     }
 
     /**
      * Traffic light systems are connected to the cloud via WAN and to other traffic light systems in range via WiFi.
      */
     public void addTrafficLightSystem(TrafficLightSystem tls) {
-        getGraph().addVertex(tls);
+        beginBatch();
+        addVertex(tls);
+        trafficLightSystems.add(tls);
+        trafficLightSystemGrid.add(tls);
+        cctvApplications.add(tls.getApplication());
         for (DatacenterCloud dc : getCloudDcs()) {
             addLink(new NetworkLinkWanUp(tls, dc));
             addLink(new NetworkLinkWanDown(dc, tls));
@@ -65,93 +120,249 @@ public class InfrastructureGraphCity extends InfrastructureGraph {
             addLink(new NetworkLinkWifiApToAp(tls, _tls));
             addLink(new NetworkLinkWifiApToAp(_tls, tls));
         }
+        commit();
     }
 
     public void removeCar(Taxi taxi) {
-        getGraph().removeVertex(taxi);
+        beginBatch();
+        removeVertex(taxi);
+        taxis.remove(taxi);
+        v2iApplications.remove(taxi.getApplication());
+        taxiCoverage.remove(taxi);
+        commit();
     }
 
     /**
-     * Recalculates the traffic light systems in range for all taxis.
+     * Called by a taxi once it started and created its application.
      */
-    public void update() {
-        for (Taxi taxi : getTaxis()) {
-            Set<TrafficLightSystem> edgesToRemove = getCurrentlyLinkedTls(taxi);
-            Set<TrafficLightSystem> edgesToAdd = getTlsInRange(taxi);
+    void taxiStarted(Taxi taxi) {
+        if (!getGraph().containsVertex(taxi)) return;  // already removed
+        taxis.add(taxi);
+        v2iApplications.add(taxi.getApplication());
+    }
 
-            Set<TrafficLightSystem> union = new HashSet<>(edgesToRemove);
-            union.retainAll(edgesToAdd);
+    @Override
+    public void addLink(NetworkLink networkLink) {
+        super.addLink(networkLink);
+        if (networkLink instanceof NetworkLinkWifi) {
+            wifiLinks.add((NetworkLinkWifi) networkLink);
+        } else if (networkLink instanceof NetworkLinkWanUp) {
+            wanUpLinks.add((NetworkLinkWanUp) networkLink);
+        } else if (networkLink instanceof NetworkLinkWanDown) {
+            wanDownLinks.add((NetworkLinkWanDown) networkLink);
+        }
+        String type = getEnergyType(networkLink);
+        if (energyRollup != null && type != null) {
+            getEnergyNode(getStationaryEndpoint(networkLink), type).add(networkLink);
+        }
+    }
 
-            edgesToRemove.removeAll(union);
-            edgesToAdd.removeAll(union);
+    @Override
+    public NetworkLink removeLink(SimEntity src, SimEntity dest) {
+        NetworkLink networkLink = super.removeLink(src, dest);
+        unregisterLink(networkLink);
+        return networkLink;
+    }
 
-            for (TrafficLightSystem tls : edgesToRemove) {
-                removeLink(taxi, tls);
+    @Override
+    public void removeVertex(SimEntity entity) {
+        if (getGraph().containsVertex(entity)) {
+            for (NetworkLink networkLink : getGraph().edgesOf(entity)) {
+                unregisterLink(networkLink);
             }
-            for (TrafficLightSystem tls : edgesToAdd) {
-                addLink(new NetworkLinkWifiTaxiToAp(taxi, tls));
+        }
+        super.removeVertex(entity);
+    }
+
+    /**
+     * Recalculates the traffic light systems in range for all taxis.
+     *
+     * Only the links of taxis whose set of traffic light systems in range changed are updated.
+     * All link changes are applied in a single batch.
+     *
+     * @return the taxis whose links changed
+     */
+    public List<Taxi> update() {
+        List<Taxi> updatedTaxis = new ArrayList<>();
+        beginBatch();
+        for (Taxi taxi : getTaxis()) {
+            Set<TrafficLightSystem> linkedTls = taxiCoverage.getOrDefault(taxi, Collections.emptySet());
+            Set<TrafficLightSystem> tlsInRange = getTlsInRange(taxi);
+            if (tlsInRange.equals(linkedTls)) continue;
+
+            for (TrafficLightSystem tls : linkedTls) {
+                if (!tlsInRange.contains(tls)) {
+                    removeLink(taxi, tls);
+                }
             }
+            for (TrafficLightSystem tls : tlsInRange) {
+                if (!linkedTls.contains(tls)) {
+                    addLink(new NetworkLinkWifiTaxiToAp(taxi, tls));
+                }
+            }
+            taxiCoverage.put(taxi, tlsInRange);
+            updatedTaxis.add(taxi);
         }
+        commit();
+        return updatedTaxis;
+    }
+
+    /**
+     * Taxis are the only mobile entities in the city
+     */
+    @Override
+    protected boolean isMobile(SimEntity entity) {
+        return entity instanceof Taxi;
     }
 
     public List<DatacenterCloud> getCloudDcs() {
-        return getVertexByType(DatacenterCloud.class);
+        return cloudDcs.getMembers();
     }
 
     public List<DatacenterFog> getFogDcs() {
-        return getVertexByType(DatacenterFog.class);
+        return fogDcs.getMembers();
     }
 
+    /**
+     * Returns a new list of all started taxis in the order they were added.
+     */
     public List<Taxi> getTaxis() {
-        return filterStarted(getVertexByType(Taxi.class));
+        return taxis.snapshot();
+    }
+
+    /**
+     * Returns an index over the utilization of all fog hosts, in the order of {@link #getFogDcs()} and their hosts.
+     */
+    public HostUtilizationIndex getFogHostIndex() {
+        return fogHostIndex;
     }
 
+    /**
+     * Returns a new list of all traffic light systems in the order they were added.
+     */
     public List<TrafficLightSystem> getTraficLightSystems() {
-        return getVertexByType(TrafficLightSystem.class);
+        return trafficLightSystems.snapshot();
     }
 
     public List<NetworkLinkWifi> getWifiLinks() {
-        return getEdgeByType(NetworkLinkWifi.class);
+        return wifiLinks.getMembers();
     }
 
     public List<NetworkLinkWanUp> getWanUpLinks() {
-        return getEdgeByType(NetworkLinkWanUp.class);
+        return wanUpLinks.getMembers();
     }
 
     public List<NetworkLinkWanDown> getWanDownLinks() {
-        return getEdgeByType(NetworkLinkWanDown.class);
+        return wanDownLinks.getMembers();
+    }
+
+    public PowerGroup<DatacenterCloud> getCloudDcGroup() {
+        return cloudDcs;
+    }
+
+    public PowerGroup<DatacenterFog> getFogDcGroup() {
+        return fogDcs;
+    }
+
+    public PowerGroup<NetworkLinkWifi> getWifiLinkGroup() {
+        return wifiLinks;
     }
 
-    private <T extends SimEntity> List<T> getVertexByType(Class<T> x) {
-        return getGraph().vertexSet().stream()
-            .filter(x::isInstance)
-            .map(x::cast)
-            .collect(Collectors.toList());
+    public PowerGroup<NetworkLinkWanUp> getWanUpLinkGroup() {
+        return wanUpLinks;
     }
 
-    private <T extends NetworkLink> List<T> getEdgeByType(Class<T> x) {
-        return getGraph().edgeSet().stream()
-            .filter(x::isInstance)
-            .map(x::cast)
-            .collect(Collectors.toList());
+    public PowerGroup<NetworkLinkWanDown> getWanDownLinkGroup() {
+        return wanDownLinks;
+    }
+
+    /**
+     * Applications of all traffic light systems
+     */
+    public PowerGroup<Application> getCctvApplicationGroup() {
+        return cctvApplications;
     }
 
-    private <T extends CloudSimEntity> List<T> filterStarted(List<T> entity) {
-        return entity.stream().filter(CloudSimEntity::isStarted).collect(Collectors.toList());
+    /**
+     * Applications of all started taxis
+     */
+    public PowerGroup<Application> getV2iApplicationGroup() {
+        return v2iApplications;
     }
 
-    private Set<TrafficLightSystem> getCurrentlyLinkedTls(ComputeNode dc) {
-        return getGraph().outgoingEdgesOf(dc).stream()
-            .map(NetworkLink::getDst)
-            .map(TrafficLightSystem.class::cast)
-            .collect(Collectors.toSet());
+    /**
+     * Accounts the energy of all data centers and links to the given tree, e.g. "infrastructure/region_0_1/wifi".
+     * The city is divided into ENERGY_REGIONS_PER_AXIS regions per axis, the cloud forms a region of its own, and
+     * each region has a node per type: cloud, fog, wifi, wanUp and wanDown. Links are accounted to the region of their
+     * traffic light system. Existing members are added immediately, later ones whenever they are added or removed.
+     */
+    public void setEnergyRollup(EnergyRollup energyRollup) {
+        this.energyRollup = energyRollup;
+        for (DatacenterCloud cloudDc : getCloudDcs()) {
+            getEnergyNode(cloudDc, "cloud").add(cloudDc);
+        }
+        for (DatacenterFog fogDc : getFogDcs()) {
+            getEnergyNode(fogDc, "fog").add(fogDc);
+        }
+        for (NetworkLink networkLink : getGraph().edgeSet()) {
+            String type = getEnergyType(networkLink);
+            if (type != null) {
+                getEnergyNode(getStationaryEndpoint(networkLink), type).add(networkLink);
+            }
+        }
+    }
+
+    public EnergyRollup getEnergyRollup() {
+        return energyRollup;
+    }
+
+    private void unregisterLink(NetworkLink networkLink) {
+        if (networkLink instanceof NetworkLinkWifi) {
+            wifiLinks.remove((NetworkLinkWifi) networkLink);
+        } else if (networkLink instanceof NetworkLinkWanUp) {
+            wanUpLinks.remove((NetworkLinkWanUp) networkLink);
+        } else if (networkLink instanceof NetworkLinkWanDown) {
+            wanDownLinks.remove((NetworkLinkWanDown) networkLink);
+        }
+        String type = getEnergyType(networkLink);
+        if (energyRollup != null && type != null) {
+            getEnergyNode(getStationaryEndpoint(networkLink), type).remove(networkLink);
+        }
+    }
+
+    /**
+     * Returns the name of the energy rollup node for the type of the link, or null if its power is not measured.
+     */
+    private static String getEnergyType(NetworkLink networkLink) {
+        if (networkLink instanceof NetworkLinkWifi) return "wifi";
+        if (networkLink instanceof NetworkLinkWanUp) return "wanUp";
+        if (networkLink instanceof NetworkLinkWanDown) return "wanDown";
+        return null;
+    }
+
+    /**
+     * Taxis move and the cloud has no location, so links are accounted to the region of their other endpoint.
+     */
+    private static ComputeNode getStationaryEndpoint(NetworkLink networkLink) {
+        SimEntity src = networkLink.getSrc();
+        return (ComputeNode) (src instanceof Taxi || src instanceof DatacenterCloud ? networkLink.getDst() : src);
+    }
+
+    private EnergyRollup getEnergyNode(ComputeNode computeNode, String type) {
+        if (computeNode instanceof DatacenterCloud) {
+            return energyRollup.child("cloud", type);
+        }
+        Location location = computeNode.getLocation();
+        int column = Math.min((int) (location.getX() / CITY_WIDTH * ENERGY_REGIONS_PER_AXIS), ENERGY_REGIONS_PER_AXIS - 1);
+        int row = Math.min((int) (location.getY() / CITY_HEIGHT * ENERGY_REGIONS_PER_AXIS), ENERGY_REGIONS_PER_AXIS - 1);
+        return energyRollup.child("region_" + column + "_" + row, type);
     }
 
     private Set<TrafficLightSystem> getTlsInRange(ComputeNode dc) {
-        return getTraficLightSystems().stream()
-            .filter(tls -> tls.getLocation().distance(dc.getLocation()) <= WIFI_RANGE)
-            .filter(tls -> tls != dc)
-            .collect(Collectors.toSet());
+        Set<TrafficLightSystem> tlsInRange = new HashSet<>();
+        trafficLightSystemGrid.forEachInRange(dc.getLocation(), WIFI_RANGE, tls -> {
+            if (tls != dc) tlsInRange.add(tls);
+        });
+        return tlsInRange;
     }
 }
-
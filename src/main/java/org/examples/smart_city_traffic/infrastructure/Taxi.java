@@ -31,6 +31,7 @@ public class Taxi extends ComputeNode {
     @Override
     protected void startInternal() {
         application = v2iApplicationGenerator.create(this);
+        ((InfrastructureGraphCity) getSimulation().getNetworkTopology()).taxiStarted(this);
         // Don't call super.startEntity(), the DATACENTER_REGISTRATION_REQUEST event will cause a memory leak
     }
 
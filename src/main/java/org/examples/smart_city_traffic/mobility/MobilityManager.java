@@ -17,7 +17,10 @@ import org.leaf.location.Location;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.examples.smart_city_traffic.CityTags.*;
 import static org.examples.smart_city_traffic.Settings.*;
@@ -30,6 +33,8 @@ public class MobilityManager extends CloudSimEntity {
     private DijkstraShortestPath<Location, Street> streetPathAlgorithm;
 
     private List<Integer> taxiCountHistory = new ArrayList<>();
+    /** Applications whose last reroute failed, they are retried on the next network update */
+    private final Set<Application> failedReroutes = new LinkedHashSet<>();
     private long lastReportingTime = System.currentTimeMillis();
 
     public MobilityManager(CloudSim simulation, City city) {
@@ -55,11 +60,13 @@ public class MobilityManager extends CloudSimEntity {
     public void processEvent(SimEvent evt) {
         InfrastructureGraphCity topology = (InfrastructureGraphCity) getSimulation().getNetworkTopology();
         if (evt.getTag() == CREATE_CARS) {
+            topology.beginBatch();  // all taxis of a time step are added at once
             for (MobilityModelTaxi mobilityModel : pickNewCarRoutes()) {
                 Taxi taxi = new Taxi(getSimulation(), mobilityModel, city.getV2iApplicationGenerator());
                 topology.addCar(taxi);
                 schedule(mobilityModel.getEndTime(), DESTROY_CAR, taxi);
             }
+            topology.commit();
             schedule(TIME_STEP_INTERVAL, CREATE_CARS);
         } else if (evt.getTag() == DESTROY_CAR) {
             Taxi taxi = (Taxi) evt.getData();
@@ -67,8 +74,19 @@ public class MobilityManager extends CloudSimEntity {
             taxi.shutdown();
         } else if (evt.getTag() == UPDATE_NETWORK_TOPOLOGY) {
             InfrastructureGraphCity network = (InfrastructureGraphCity) this.getSimulation().getNetworkTopology();
-            network.update();
-            network.getTaxis().stream().map(Taxi::getApplication).forEach(Application::updateNetwork);
+            // Only applications of taxis that are linked to different traffic light systems need to be rerouted,
+            // and those whose last reroute failed, as capacity may have been freed up meanwhile
+            Set<Application> applications = new LinkedHashSet<>();
+            for (Taxi taxi : network.update()) {
+                applications.add(taxi.getApplication());
+            }
+            for (Application application : failedReroutes) {
+                if (application.isRunning()) {
+                    applications.add(application);
+                }
+            }
+            failedReroutes.clear();
+            failedReroutes.addAll(Application.updateNetworks(new ArrayList<>(applications), ForkJoinPool.commonPool()));
             schedule(WIFI_REALLOCATION_INTERVAL, UPDATE_NETWORK_TOPOLOGY);
         } else if (evt.getTag() == COUNT_CARS) {
             taxiCountHistory.add(getCars().size());
@@ -1,23 +1,23 @@
 package org.examples.smart_city_traffic.placement;
 
-import org.examples.smart_city_traffic.infrastructure.DatacenterFog;
 import org.examples.smart_city_traffic.infrastructure.InfrastructureGraphCity;
-import org.cloudbus.cloudsim.datacenters.DatacenterSimple;
 import org.cloudbus.cloudsim.hosts.Host;
 import org.leaf.application.Application;
 import org.leaf.application.Task;
+import org.leaf.host.HostLeaf;
+import org.leaf.host.HostUtilizationIndex;
 import org.leaf.infrastructure.ComputeNode;
 import org.leaf.infrastructure.InfrastructureGraph;
 import org.leaf.placement.Orchestrator;
+import org.leaf.placement.PlacementStrategies;
+import org.leaf.placement.PlacementStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-
+import static org.examples.smart_city_traffic.Settings.BATCH_ADMISSION;
 import static org.examples.smart_city_traffic.Settings.FOG_SHUTDOWN_DEADLINE;
 import static org.examples.smart_city_traffic.Settings.FOG_UTILIZATION_THRESHOLD;
+import static org.examples.smart_city_traffic.Settings.PLACEMENT_STRATEGY;
 
 /**
  * DatacenterBroker for the city experiments.
@@ -26,21 +26,76 @@ public class OrchestratorCity extends Orchestrator {
     private static final Logger LOGGER = LoggerFactory.getLogger(OrchestratorCity.class.getSimpleName());
 
     ComputeNode cloudDc;
+    /** Strategy for fog nodes below FOG_UTILIZATION_THRESHOLD or null to use the fog host index */
+    private PlacementStrategy fogPlacementStrategy = null;
 
     public OrchestratorCity(InfrastructureGraph infrastructureGraph, ComputeNode cloudDc) {
         super(infrastructureGraph);
         this.cloudDc = cloudDc;
+        setBatchAdmission(BATCH_ADMISSION);
+        if (PLACEMENT_STRATEGY != null) {
+            setPlacementStrategy(PlacementStrategies.forName(PLACEMENT_STRATEGY));
+        }
     }
 
     @Override
     public void placeApplication(Application application) {
         for (Task task : application.getTasks()) {
             if (!task.isBound()) {
-                task.setComputeNode(determinePlacement(task));
+                if (fogPlacementStrategy == null) {
+                    task.setComputeNode(determinePlacement(task));
+                } else {
+                    task.setComputeNode(determinePlacement(application, task));
+                }
             }
         }
     }
 
+    /**
+     * Places processing tasks by the given strategy instead of the one determined by FOG_SHUTDOWN_DEADLINE.
+     * Fog nodes utilized at or above FOG_UTILIZATION_THRESHOLD are still never chosen. Null restores the default.
+     *
+     * Note that the feasibility rules differ: a strategy only considers fog nodes with enough MIPS left for the task
+     * and otherwise places it in the cloud, whereas the default picks the best fog node below the threshold without
+     * checking whether the task fits, so the application fails to start if it does not. Both select from the same
+     * fog nodes as long as FOG_UTILIZATION_THRESHOLD plus the largest task's share of a fog node's MIPS is at most 1,
+     * which holds for the default settings.
+     */
+    public void setPlacementStrategy(PlacementStrategy placementStrategy) {
+        this.fogPlacementStrategy = placementStrategy == null ? null : placementStrategy.belowUtilization(FOG_UTILIZATION_THRESHOLD);
+    }
+
+    /**
+     * Returns the strategy processing tasks are placed on fog nodes by, including the FOG_UTILIZATION_THRESHOLD.
+     * Without an explicit strategy, this is the one determined by FOG_SHUTDOWN_DEADLINE, which the fog host index
+     * implements.
+     */
+    public PlacementStrategy getPlacementStrategy() {
+        if (fogPlacementStrategy != null) {
+            return fogPlacementStrategy;
+        }
+        PlacementStrategy strategy = FOG_SHUTDOWN_DEADLINE < 0 ? PlacementStrategies.SPREAD : PlacementStrategies.CONSOLIDATE;
+        return strategy.belowUtilization(FOG_UTILIZATION_THRESHOLD);
+    }
+
+    /**
+     * Places a processing task on the fog node that scores highest according to the placement strategy,
+     * or in the cloud if no fog node fits the task.
+     */
+    protected ComputeNode determinePlacement(Application application, Task task) {
+        InfrastructureGraphCity infrastructureGraph = (InfrastructureGraphCity) getInfrastructureGraph();
+        if (infrastructureGraph.getFogDcs().isEmpty()) {
+            LOGGER.info("No fog nodes available. Placing {} in the cloud.", task);
+            return cloudDc;
+        }
+        ComputeNode fogDc = selectComputeNode(application, task, infrastructureGraph.getFogDcs(), fogPlacementStrategy);
+        if (fogDc != null) {
+            return fogDc;
+        }
+        LOGGER.warn("No fog node running at <{} capacity fits {}. Placing it in the cloud.", FOG_UTILIZATION_THRESHOLD, task);
+        return cloudDc;
+    }
+
     /**
      * Assigns VMs (Tasks) to data centers (compute nodes).
      *
@@ -50,69 +105,43 @@ public class OrchestratorCity extends Orchestrator {
      * - If FOG_SHUTDOWN_DEADLINE>=0 processing tasks are consolidated on a minimal number of fog nodes
      *
      * If there are no fog nodes or if all are utilized more than FOG_UTILIZATION_THRESHOLD, processing tasks are placed in the cloud.
+     * Unlike placement by a {@link PlacementStrategy}, the chosen fog node is not checked for enough free MIPS,
+     * see {@link #setPlacementStrategy(PlacementStrategy)}.
+     * Fog hosts are looked up in the fog host index of the infrastructure graph instead of comparing all of them.
      */
     protected ComputeNode determinePlacement(Task task) {
         if (task.isBound()) {
             return task.getComputeNode();
         }
 
-        Comparator<Host> comparator;
+        InfrastructureGraphCity infrastructureGraph = (InfrastructureGraphCity) getInfrastructureGraph();
+        HostUtilizationIndex fogHostIndex = infrastructureGraph.getFogHostIndex();
+        if (fogHostIndex.size() == 0) {
+            LOGGER.info("No fog nodes available. Placing {} in the cloud.", task);
+            return cloudDc;
+        }
+
+        HostLeaf host;
         if (FOG_SHUTDOWN_DEADLINE < 0) {
-            comparator = findLeastUtilizedFogDc();
+            host = fogHostIndex.getLeastUtilizedBelowThreshold();
         } else {
-            comparator = findMaxUtilizedFogDcBelowThreshold();
+            host = fogHostIndex.getMostUtilizedBelowThreshold();
         }
 
-        InfrastructureGraphCity infrastructureGraph = (InfrastructureGraphCity) getInfrastructureGraph();
-        List<DatacenterFog> fogDcs = infrastructureGraph.getFogDcs();
-        Optional<Host> optionalHost = fogDcs.stream()
-            .map(DatacenterSimple::getHostList)
-            .flatMap(List::stream)
-            .max(comparator);
-
-        if (optionalHost.isPresent()) {
-            Host host = optionalHost.get();
-            if (host.getCpuPercentUtilization() < FOG_UTILIZATION_THRESHOLD) {
-                return (ComputeNode) optionalHost.get().getDatacenter();
-            } else {
-                LOGGER.warn("All fog nodes running at >{} capacity. Placing {} in the cloud.", FOG_UTILIZATION_THRESHOLD, task);
-            }
-        } else {
-            LOGGER.info("No fog nodes available. Placing {} in the cloud.", task);
+        if (host != null && !isAtThreshold(fogHostIndex.get(0))) {
+            return (ComputeNode) host.getDatacenter();
         }
+        LOGGER.warn("All fog nodes running at >{} capacity. Placing {} in the cloud.", FOG_UTILIZATION_THRESHOLD, task);
         return cloudDc;
     }
 
     /**
-     * Returns a Comparator that determines the fog data center with the lowest utilization.
+     * The former host comparator considered a host utilized exactly at FOG_UTILIZATION_THRESHOLD equal to every other
+     * host. If such a host came first, it was selected and the task went to the cloud; later ones were never selected.
+     * This check keeps the placements identical.
      */
-    private Comparator<Host> findLeastUtilizedFogDc() {
-        return findFogDc(false);
-    }
-
-    /**
-     * Returns a Comparator that determines the fog data center with the highest utilization below the FOG_UTILIZATION_THRESHOLD.
-     */
-    private Comparator<Host> findMaxUtilizedFogDcBelowThreshold() {
-        return findFogDc(true);
-    }
-
-    /**
-     * Private helper function for constructing a host Comparator
-     */
-    private Comparator<Host> findFogDc(boolean max) {
-        return Comparator.comparing(Host::getCpuPercentUtilization, (u1, u2) -> {
-            if (u1 < FOG_UTILIZATION_THRESHOLD && u2 > FOG_UTILIZATION_THRESHOLD) {
-                return 1;
-            } else if (u1 > FOG_UTILIZATION_THRESHOLD && u2 < FOG_UTILIZATION_THRESHOLD) {
-                return -1;
-            } else if (u1 > FOG_UTILIZATION_THRESHOLD && u2 > FOG_UTILIZATION_THRESHOLD) {
-                return max ? Double.compare(u2, u1) : Double.compare(u1, u2);
-            } else if (u1 < FOG_UTILIZATION_THRESHOLD && u2 < FOG_UTILIZATION_THRESHOLD) {
-                return max ? Double.compare(u1, u2) : Double.compare(u2, u1);
-            } else {
-                return 0;
-            }
-        });
+    private boolean isAtThreshold(Host host) {
+        double utilization = host.getCpuPercentUtilization();
+        return !(utilization < FOG_UTILIZATION_THRESHOLD) && !(utilization > FOG_UTILIZATION_THRESHOLD);
     }
 }
@@ -2,8 +2,9 @@ package org.examples.smart_city_traffic.util;
 
 import de.siegmar.fastcsv.writer.CsvWriter;
 import org.examples.smart_city_traffic.mobility.MobilityManager;
-import org.cloudbus.cloudsim.power.PowerMeasurement;
-import org.cloudbus.cloudsim.power.PowerMeter;
+import org.leaf.power.EnergyRollup;
+import org.leaf.power.PowerMeterLeaf;
+import org.leaf.power.PowerSeries;
 
 import java.io.File;
 import java.io.IOException;
@@ -17,19 +18,19 @@ import static org.examples.smart_city_traffic.Settings.POWER_MEASUREMENT_INTERVA
 import static org.examples.smart_city_traffic.Settings.SIMULATION_TIME;
 
 /**
- * Exports a CSV file containing taxi count and PowerMeter measurements.
+ * Exports a CSV file containing taxi count and PowerMeterLeaf measurements, or the energy of an EnergyRollup.
  *
  * It is expected that all power and taxi count measurements were conducted with the same frequency!
  *
  * The first column "time" describes the simulation time of the measurement
  * The second column "taxis" describes the number of taxis that was on the map at the simulation time
- * For every provided PowerMeter two more columns are added:
+ * For every provided PowerMeterLeaf two more columns are added:
  * - "<name> static" for the static energy consumption part of the power measurement
  * - "<name> dynamic" for the dynamic energy consumption part of the power measurement
  */
 public class CsvExporter {
 
-    public static void write(String fileName, MobilityManager mm, List<PowerMeter> powerMeters) {
+    public static void write(String fileName, MobilityManager mm, List<PowerMeterLeaf> powerMeters) {
         List<Integer> taxiCountHistory = mm.getTaxiCountHistory();
 
         String[] types = new String[] {"static", "dynamic"};
@@ -45,20 +46,39 @@ public class CsvExporter {
         }
         csvData.add(columnNames);
 
-        List<List<PowerMeasurement>> measurementsList = powerMeters.stream().map(PowerMeter::getPowerMeasurements).collect(toList());
+        List<PowerSeries.View> measurementsList = powerMeters.stream().map(powerMeter -> powerMeter.getPowerSeries().view()).collect(toList());
 
         for (int line_index = 0; line_index < SIMULATION_TIME / POWER_MEASUREMENT_INTERVAL; line_index++) {
             String[] line = new String[columnNames.length];
             line[0] = Integer.toString(line_index);
             line[1] = Integer.toString(taxiCountHistory.get(line_index));
             for (int i = 0; i < powerMeters.size(); i++) {
-                PowerMeasurement measurement = measurementsList.get(i).get(line_index);
-                line[i * types.length + 2] = Double.toString(measurement.getStaticPower());
-                line[i * types.length + 3] = Double.toString(measurement.getDynamicPower());
+                PowerSeries.View measurements = measurementsList.get(i);
+                line[i * types.length + 2] = Double.toString(measurements.getStaticPower(line_index));
+                line[i * types.length + 3] = Double.toString(measurements.getDynamicPower(line_index));
             }
             csvData.add(line);
         }
 
+        write(fileName, csvData);
+    }
+
+    /**
+     * Exports the static and dynamic energy in Joule that every node of an energy rollup consumed until the end of
+     * the simulation, one line per node identified by its path.
+     */
+    public static void writeEnergy(String fileName, List<EnergyRollup> nodes) {
+        Collection<String[]> csvData = new ArrayList<>();
+        csvData.add(new String[] {"node", "static", "dynamic"});
+        for (EnergyRollup node : nodes) {
+            csvData.add(new String[] {node.getPath(),
+                Double.toString(node.getStaticEnergy(SIMULATION_TIME)),
+                Double.toString(node.getDynamicEnergy(SIMULATION_TIME))});
+        }
+        write(fileName, csvData);
+    }
+
+    private static void write(String fileName, Collection<String[]> csvData) {
         File file = new File(fileName);
         CsvWriter csvWriter = new CsvWriter();
         try {
@@ -1,26 +1,26 @@
 package org.examples.smart_city_traffic.visualization;
 
-import org.cloudbus.cloudsim.power.PowerMeasurement;
-import org.cloudbus.cloudsim.power.PowerMeter;
 import org.knowm.xchart.XYChart;
 import org.knowm.xchart.XYChartBuilder;
 import org.knowm.xchart.XYSeries;
 import org.knowm.xchart.style.Styler;
 import org.knowm.xchart.style.markers.SeriesMarkers;
+import org.leaf.power.PowerMeterLeaf;
+import org.leaf.power.PowerSeries;
 
 import java.awt.*;
 import java.util.Arrays;
 import java.util.List;
 
 /**
- * Displays the total power usage of all provided PowerMeters over time.
+ * Displays the total power usage of all provided PowerMeterLeafs over time.
  */
 public class PowerChart extends LineChart {
 
-    private List<PowerMeter> powerMeters;
+    private List<PowerMeterLeaf> powerMeters;
     private double maxWatt = 0;
 
-    public PowerChart(String name, List<PowerMeter> powerMeters, double[] timeSteps) {
+    public PowerChart(String name, List<PowerMeterLeaf> powerMeters, double[] timeSteps) {
         super(timeSteps);
         this.powerMeters = powerMeters;
         initChart(name);
@@ -31,13 +31,12 @@ public class PowerChart extends LineChart {
         if (currentTimeStep >= timeSteps.length) return;
 
         double max = 0;
-        for (PowerMeter powerMeter : powerMeters) {
-            double[] measurements = powerMeter.getPowerMeasurements().stream().mapToDouble(PowerMeasurement::getTotalPower).toArray();
+        for (PowerMeterLeaf powerMeter : powerMeters) {
+            PowerSeries.View view = powerMeter.getPowerSeries().view();
+            double[] measurements = view.toTotalPowerArray();
             double[] t = Arrays.copyOfRange(timeSteps, 0, measurements.length);
             updateSeries(getChart(), powerMeter.getName(), t, measurements, SeriesMarkers.NONE, Color.BLACK);
-            for (double measurement : measurements) {
-                max = Math.max(max, measurement);
-            }
+            max = Math.max(max, view.getMaxTotalPower());
         }
 
         if (max > maxWatt) {
@@ -6,9 +6,9 @@ import org.cloudbus.cloudsim.core.CloudSimEntity;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.Simulation;
 import org.cloudbus.cloudsim.core.events.SimEvent;
-import org.cloudbus.cloudsim.power.PowerMeter;
 import org.knowm.xchart.SwingWrapper;
 import org.knowm.xchart.XYChart;
+import org.leaf.power.PowerMeterLeaf;
 
 import javax.swing.*;
 import java.util.ArrayList;
@@ -43,8 +43,8 @@ public class Visualizer extends CloudSimEntity {
                       Simulation simulation,
                       City city,
                       MobilityManager mobilityManager,
-                      List<PowerMeter> infrastructurePowerMeters,
-                      List<PowerMeter> applicationPowerMeters,
+                      List<PowerMeterLeaf> infrastructurePowerMeters,
+                      List<PowerMeterLeaf> applicationPowerMeters,
                       double interval,
                       double totalTime) {
         super(simulation);
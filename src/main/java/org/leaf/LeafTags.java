@@ -21,6 +21,21 @@ public class LeafTags {
     public static final int UPDATE_NETWORK_TOPOLOGY = BASE + 1;
     public static final int SHUTDOWN_FOG_NODE = BASE + 2;
 
+    /**
+     * Measurement events
+     */
+    public static final int POWER_MEASUREMENT = BASE + 3;
+
+    /**
+     * Admission events
+     */
+    public static final int ADMIT_APPLICATIONS = BASE + 4;
+
+    /**
+     * Optimization events
+     */
+    public static final int OPTIMIZE_PLACEMENT = BASE + 5;
+
     /**
      * Private constructor to avoid class instantiation.
      */
@@ -7,20 +7,26 @@ import org.cloudbus.cloudsim.core.events.SimEvent;
 import org.cloudbus.cloudsim.hosts.Host;
 import org.cloudbus.cloudsim.power.PowerAware;
 import org.jgrapht.GraphPath;
+import org.jgrapht.alg.util.Pair;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 import org.leaf.host.HostLeaf;
+import org.leaf.infrastructure.CapacityAwareRouter;
 import org.leaf.infrastructure.ComputeNode;
 import org.leaf.infrastructure.InfrastructureGraph;
 import org.leaf.infrastructure.NetworkLink;
 import org.leaf.placement.Orchestrator;
 import org.leaf.power.PowerModelApplication;
+import org.leaf.power.PowerNotifier;
+import org.leaf.power.PowerObservable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static org.examples.smart_city_traffic.Settings.SIMULATION_TIME;
@@ -31,7 +37,7 @@ import static org.leaf.LeafTags.*;
  *
  * A collection of tasks connected by a directed graph.
  */
-public class Application extends CloudSimEntity implements PowerAware<PowerModelApplication> {
+public class Application extends CloudSimEntity implements PowerAware<PowerModelApplication>, PowerObservable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Application.class.getSimpleName());
 
     public static Application NULL = new Application(Simulation.NULL, Orchestrator.NULL);
@@ -40,13 +46,19 @@ public class Application extends CloudSimEntity implements PowerAware<PowerModel
     private Task lastAddedTask;
     private double lastOutgoingBitRate;
     private boolean running = false;
+    private boolean failed = false;
 
     private Orchestrator orchestrator = Orchestrator.NULL;
     private PowerModelApplication powerModel = PowerModelApplication.NULL;
+    private final PowerNotifier powerNotifier = new PowerNotifier(() -> getPowerModel().getPowerMeasurement());
 
     /** Keeps track of how many resources are allocated by the application on compute nodes and network links */
-    private Map<NetworkLink, Double> reservedNetworkMap = new HashMap<>();
-    private Map<HostLeaf, Double> reservedCpuMap = new HashMap<>();
+    private final ReservationLedger<NetworkLink> reservedBandwidth = new ReservationLedger<>();
+    private final ReservationLedger<HostLeaf> reservedMips = new ReservationLedger<>();
+    /** Network paths the bandwidth of each data flow is currently reserved on */
+    private Map<DataFlow, GraphPath<SimEntity, NetworkLink>> networkPaths = new HashMap<>();
+    /** Shortest paths between the tasks of each data flow when it was last routed, which may differ from its network path */
+    private final Map<DataFlow, GraphPath<SimEntity, NetworkLink>> routedShortestPaths = new HashMap<>();
 
     public Application(Simulation simulation, Orchestrator orchestrator) {
         super(simulation);
@@ -57,27 +69,323 @@ public class Application extends CloudSimEntity implements PowerAware<PowerModel
     @Override
     protected void startInternal() {
         if (getSimulation().clock() > SIMULATION_TIME) return;
+        if (orchestrator.isBatchAdmission()) {
+            // The first application of a batch admits all applications that start at the same time
+            if (orchestrator.submit(this)) {
+                schedule(0, ADMIT_APPLICATIONS);
+            }
+            return;
+        }
         orchestrator.placeApplication(this);
         checkTasksPlaced();
-        reserveNetwork();
-        reserveCpu();
+        if (!reserveResources()) return;
         running = true;
+        powerNotifier.powerChanged();
     }
 
     @Override
-    public void processEvent(SimEvent evt) {}
+    public void processEvent(SimEvent evt) {
+        if (evt.getTag() == ADMIT_APPLICATIONS) {
+            orchestrator.admitSubmitted();
+        }
+    }
 
     @Override
     public void shutdown() {
-        releaseNetwork();
-        releaseCpu();
+        if (!running) {
+            Application trigger = orchestrator.withdraw(this);
+            if (trigger != null) {
+                // The admission event of this application is lost, so the next one of the batch takes over
+                trigger.schedule(0, ADMIT_APPLICATIONS);
+            }
+        }
+        releaseResources();
         running = false;
+        powerNotifier.powerChanged();
         super.shutdown();
     }
 
-    public void updateNetwork() {
-        releaseNetwork();
-        reserveNetwork();
+    /**
+     * Reroutes all data flows whose shortest network path changed since they were routed or whose path lost a link.
+     * Data flows that were deliberately routed over an alternative path stay there as long as neither happens, so
+     * they do not search for alternative paths again on every update.
+     *
+     * If the shortest path lacks bandwidth, the data flow is routed over the next shortest path with enough capacity.
+     * Only links that are not part of both the old and the new path are released or reserved,
+     * so calling this method without any changes in the infrastructure is a no-op.
+     * Applications that are not running have no reservations to update.
+     *
+     * If the new paths cannot be reserved, the old reservations are kept. If an old path of any data flow lost a link
+     * that was removed from the infrastructure graph, however, it cannot be kept, and the application
+     * {@link #isFailed() fails}. It also fails if the released old paths cannot be reserved again.
+     *
+     * @return false if the new paths could not be reserved
+     */
+    public boolean updateNetwork() {
+        if (!running) return true;
+        InfrastructureGraph network = getNetwork();
+        List<DataFlow> changedDataFlows = null;
+        List<GraphPath<SimEntity, NetworkLink>> newPaths = null;
+        ResourceReservation reservation = null;
+        DataFlow unroutedDataFlow = null;
+        boolean lostLinks = false;
+        for (DataFlow dataFlow : graph.edgeSet()) {
+            GraphPath<SimEntity, NetworkLink> oldPath = networkPaths.get(dataFlow);
+            SimEntity src = dataFlow.getSourceTask().getHost().getDatacenter();
+            SimEntity dst = dataFlow.getTargetTask().getHost().getDatacenter();
+            GraphPath<SimEntity, NetworkLink> shortestPath = network.getPath(src, dst);
+            if (isSamePath(shortestPath, oldPath)) continue;
+            List<NetworkLink> oldLinks = oldPath.getEdgeList();
+            boolean lostLink = hasDetachedLink(oldLinks, network);
+            if (!lostLink && isSamePath(shortestPath, routedShortestPaths.get(dataFlow))) continue;
+
+            if (reservation == null) {
+                changedDataFlows = new ArrayList<>();
+                newPaths = new ArrayList<>();
+                reservation = new ResourceReservation();
+            }
+            // All data flows are checked, as any of them may have lost a link that makes keeping the old paths impossible
+            lostLinks = lostLinks || lostLink;
+            if (unroutedDataFlow != null) continue;
+            // Bandwidth on the old path is already reserved by this data flow and can be reused
+            ResourceReservation pending = reservation;
+            GraphPath<SimEntity, NetworkLink> newPath = network.getRouter().findPath(src, dst, dataFlow.getBitRate(),
+                link -> pending.getBandwidth(link) - (oldLinks.contains(link) ? dataFlow.getBitRate() : 0));
+            if (newPath == null) {
+                unroutedDataFlow = dataFlow;
+                continue;
+            }
+            if (isSamePath(newPath, oldPath)) continue;
+            for (NetworkLink networkLink : newPath.getEdgeList()) {
+                if (!oldLinks.contains(networkLink)) {
+                    reservation.addBandwidth(networkLink, dataFlow.getBitRate());
+                }
+            }
+            changedDataFlows.add(dataFlow);
+            newPaths.add(newPath);
+        }
+        if (unroutedDataFlow != null) {
+            if (lostLinks) {
+                fail("There is no path with enough bandwidth to replace the removed links of " + unroutedDataFlow + ".");
+                return false;
+            }
+            LOGGER.warn("{}: {}: Cannot reroute {} as there is no path with enough bandwidth between its tasks.", getSimulation().clockStr(), getClass().getSimpleName(), unroutedDataFlow);
+            return false;
+        }
+        if (changedDataFlows == null) return true;
+        if (changedDataFlows.isEmpty()) {
+            recordShortestPaths();
+            return true;
+        }
+
+        // Release the old links first, so that their capacity is available for the new paths
+        ResourceReservation released = new ResourceReservation();
+        for (int i = 0; i < changedDataFlows.size(); i++) {
+            DataFlow dataFlow = changedDataFlows.get(i);
+            List<NetworkLink> newLinks = newPaths.get(i).getEdgeList();
+            for (NetworkLink networkLink : networkPaths.get(dataFlow).getEdgeList()) {
+                if (!newLinks.contains(networkLink)) {
+                    released.addBandwidth(networkLink, dataFlow.getBitRate());
+                }
+            }
+        }
+        release(released);
+        if (!reservation.commit()) {
+            if (hasDetachedLink(released.getBandwidth(), network)) {
+                // Restoring would reserve bandwidth on links that are no longer part of the graph
+                fail("Cannot reserve the paths that replace removed links. " + reservation.getFailureReason());
+                return false;
+            }
+            LOGGER.warn("{}: {}: Cannot reroute application, keeping the old paths. {}", getSimulation().clockStr(), getClass().getSimpleName(), reservation.getFailureReason());
+            if (!released.commit()) {
+                fail("Cannot restore the old paths. " + released.getFailureReason());
+                return false;
+            }
+            record(released);
+            return false;
+        }
+        record(reservation);
+        for (int i = 0; i < changedDataFlows.size(); i++) {
+            networkPaths.put(changedDataFlows.get(i), newPaths.get(i));
+        }
+        recordShortestPaths();
+        return true;
+    }
+
+    /**
+     * Remembers the current shortest paths of all data flows after they were routed, see {@link #updateNetwork()}.
+     */
+    private void recordShortestPaths() {
+        InfrastructureGraph network = getNetwork();
+        for (DataFlow dataFlow : graph.edgeSet()) {
+            routedShortestPaths.put(dataFlow, network.getPath(dataFlow.getSourceTask().getHost().getDatacenter(),
+                dataFlow.getTargetTask().getHost().getDatacenter()));
+        }
+    }
+
+    private static boolean hasDetachedLink(List<NetworkLink> links, InfrastructureGraph network) {
+        for (NetworkLink link : links) {
+            if (!network.getGraph().containsEdge(link)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDetachedLink(ReservationLedger<NetworkLink> links, InfrastructureGraph network) {
+        for (int i = 0; i < links.size(); i++) {
+            if (!network.getGraph().containsEdge(links.getResource(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops an application whose data flows cannot be routed any more and releases all its resources.
+     * It stays failed until it shuts down.
+     */
+    private void fail(String reason) {
+        LOGGER.warn("{}: {}: Application failed. {}", getSimulation().clockStr(), getClass().getSimpleName(), reason);
+        releaseResources();
+        running = false;
+        failed = true;
+        powerNotifier.powerChanged();
+    }
+
+    /**
+     * Reroutes the data flows of several applications, see {@link #updateNetwork()}.
+     *
+     * The shortest paths of all data flows only depend on the topology and are computed in parallel first.
+     * Afterwards the applications are updated one after another in the given order, so the reservations are exactly
+     * the same as when calling {@link #updateNetwork()} on each application sequentially.
+     *
+     * @return the applications whose new paths could not be reserved and that are still running on their old paths,
+     * in the given order
+     */
+    public static List<Application> updateNetworks(List<Application> applications, ForkJoinPool pool) {
+        List<Pair<SimEntity, SimEntity>> endpoints = new ArrayList<>();
+        InfrastructureGraph network = null;
+        for (Application application : applications) {
+            if (!application.running) continue;
+            network = application.getNetwork();
+            for (DataFlow dataFlow : application.graph.edgeSet()) {
+                endpoints.add(Pair.of(dataFlow.getSourceTask().getHost().getDatacenter(), dataFlow.getTargetTask().getHost().getDatacenter()));
+            }
+        }
+        if (network == null) return Collections.emptyList();
+        network.precomputePaths(endpoints, pool);
+        List<Application> failedApplications = new ArrayList<>();
+        for (Application application : applications) {
+            if (!application.updateNetwork() && application.isRunning()) {
+                failedApplications.add(application);
+            }
+        }
+        return failedApplications;
+    }
+
+    /**
+     * Admits several applications that started at the same time.
+     *
+     * First, the applications are placed one after another in the given order, and the MIPS of each placed
+     * application are reserved before the next one is placed, so orchestrators see the same utilization as if the
+     * applications were started one by one. Then the shortest paths of all data flows are computed in parallel, and
+     * identical paths are computed only once. Finally, the bandwidth of all applications is reserved in one pass in
+     * the given order. Applications whose bandwidth cannot be reserved release their MIPS and do not start.
+     * Unless an application fails, the reservations are the same as with sequential admission.
+     *
+     * @return the number of applications that were started
+     */
+    public static int admit(List<Application> applications, ForkJoinPool pool) {
+        List<Application> placedApplications = new ArrayList<>(applications.size());
+        List<ResourceReservation> mipsReservations = new ArrayList<>(applications.size());
+        for (Application application : applications) {
+            application.orchestrator.placeApplication(application);
+            application.checkTasksPlaced();
+            ResourceReservation mipsReservation = new ResourceReservation();
+            application.prepareMips(mipsReservation);
+            if (!mipsReservation.commit()) {
+                LOGGER.warn("{}: {}: Cannot start application. {}", application.getSimulation().clockStr(), Application.class.getSimpleName(), mipsReservation.getFailureReason());
+                continue;
+            }
+            placedApplications.add(application);
+            mipsReservations.add(mipsReservation);
+        }
+        if (placedApplications.isEmpty()) return 0;
+
+        List<Pair<SimEntity, SimEntity>> endpoints = new ArrayList<>();
+        for (Application application : placedApplications) {
+            for (DataFlow dataFlow : application.graph.edgeSet()) {
+                endpoints.add(Pair.of(dataFlow.getSourceTask().getHost().getDatacenter(), dataFlow.getTargetTask().getHost().getDatacenter()));
+            }
+        }
+        placedApplications.get(0).getNetwork().precomputePaths(endpoints, pool);
+
+        int started = 0;
+        for (int i = 0; i < placedApplications.size(); i++) {
+            Application application = placedApplications.get(i);
+            ResourceReservation mipsReservation = mipsReservations.get(i);
+            Map<DataFlow, GraphPath<SimEntity, NetworkLink>> paths = new HashMap<>();
+            ResourceReservation bandwidthReservation = new ResourceReservation();
+            if (!application.prepareBandwidth(bandwidthReservation, paths) || !bandwidthReservation.commit()) {
+                LOGGER.warn("{}: {}: Cannot start application. {}", application.getSimulation().clockStr(), Application.class.getSimpleName(), bandwidthReservation.getFailureReason());
+                mipsReservation.release();
+                continue;
+            }
+            application.record(bandwidthReservation);
+            application.record(mipsReservation);
+            application.networkPaths.putAll(paths);
+            application.recordShortestPaths();
+            application.running = true;
+            application.powerNotifier.powerChanged();
+            started++;
+        }
+        return started;
+    }
+
+    /**
+     * Moves an unbound task of a running application to another compute node.
+     *
+     * The MIPS of the task are reserved on the new host before they are released on the old one, and the data flows
+     * of the task are rerouted via {@link #updateNetwork()}, so only links that are not part of both the old and the
+     * new paths are released or reserved. All other reservations of the application are left untouched.
+     *
+     * @return false if the new host or the new paths lack capacity, in which case the task stays where it is
+     */
+    public boolean migrateTask(Task task, ComputeNode computeNode) {
+        if (!running || task.isBound() || !graph.containsVertex(task)) return false;
+        ComputeNode oldComputeNode = task.getComputeNode();
+        if (computeNode == oldComputeNode) return true;
+        HostLeaf oldHost = (HostLeaf) task.getHost();
+
+        task.setComputeNode(computeNode);
+        ResourceReservation reservation = new ResourceReservation();
+        if (task.getHost() == Host.NULL) {
+            reservation.reject(computeNode + " has no host to run " + task + " on.");
+        } else {
+            reservation.addMips((HostLeaf) task.getHost(), task.getRequestedMips());
+        }
+        if (!reservation.commit()) {
+            LOGGER.debug("{}: {}: Cannot migrate {} to {}. {}", getSimulation().clockStr(), getClass().getSimpleName(), task, computeNode, reservation.getFailureReason());
+            task.setComputeNode(oldComputeNode);
+            return false;
+        }
+        if (!updateNetwork()) {
+            reservation.release();
+            task.setComputeNode(oldComputeNode);
+            return false;
+        }
+        record(reservation);
+        release(new ResourceReservation().addMips(oldHost, task.getRequestedMips()));
+        return true;
+    }
+
+    /**
+     * Checks whether the resources required by the application under its current placement are available.
+     * Allows orchestrators to try different placements without reserving anything.
+     */
+    public boolean canReserveResources() {
+        return prepareReservation(null).isFeasible();
     }
 
     public Application addSourceTask(final Task task, double outgoingBitRate, ComputeNode computeNode) {
@@ -130,70 +438,150 @@ public class Application extends CloudSimEntity implements PowerAware<PowerModel
         }
     }
 
+    private InfrastructureGraph getNetwork() {
+        return (InfrastructureGraph) this.getSimulation().getNetworkTopology();
+    }
+
+    private static boolean isSamePath(GraphPath<SimEntity, NetworkLink> path, GraphPath<SimEntity, NetworkLink> otherPath) {
+        return path == otherPath || (path != null && otherPath != null && path.getStartVertex() == otherPath.getStartVertex()
+            && path.getEndVertex() == otherPath.getEndVertex() && path.getEdgeList().equals(otherPath.getEdgeList()));
+    }
+
     /**
-     * Finds the shortest path between two tasks on the infrastructure
+     * Collects the bandwidth of all data flows along the shortest paths with enough capacity and the MIPS of all tasks.
+     *
+     * Data flows are routed one after another, so the bandwidth requested by previous data flows of this application
+     * is taken into account when choosing the path of the next one.
+     *
+     * @param paths map that the used paths get added to, may be null
      */
-    private GraphPath<SimEntity, NetworkLink> findNetworkPath(Task srcTask, Task dstTask) {
-        InfrastructureGraph network = (InfrastructureGraph) this.getSimulation().getNetworkTopology();
-        GraphPath<SimEntity, NetworkLink> path = network.getPath(srcTask.getHost().getDatacenter(), dstTask.getHost().getDatacenter());
-        if (path == null) {
-            throw new RuntimeException("Could not find a path between " + srcTask + " and " + dstTask);
+    private ResourceReservation prepareReservation(Map<DataFlow, GraphPath<SimEntity, NetworkLink>> paths) {
+        ResourceReservation reservation = new ResourceReservation();
+        if (prepareBandwidth(reservation, paths)) {
+            prepareMips(reservation);
         }
-        return path;
+        return reservation;
     }
 
-    private void reserveNetwork() {
+    /**
+     * Adds the bandwidth of all data flows along the shortest paths with enough capacity to the reservation.
+     *
+     * @return false if a data flow cannot be routed, in which case the reservation is rejected
+     */
+    private boolean prepareBandwidth(ResourceReservation reservation, Map<DataFlow, GraphPath<SimEntity, NetworkLink>> paths) {
+        CapacityAwareRouter router = getNetwork().getRouter();
         for (DataFlow dataFlow : graph.edgeSet()) {
-            GraphPath<SimEntity, NetworkLink> path = findNetworkPath(dataFlow.getSourceTask(), dataFlow.getTargetTask());
+            Task srcTask = dataFlow.getSourceTask();
+            Task dstTask = dataFlow.getTargetTask();
+            GraphPath<SimEntity, NetworkLink> path = router.findPath(srcTask.getHost().getDatacenter(),
+                dstTask.getHost().getDatacenter(), dataFlow.getBitRate(), reservation::getBandwidth);
+            if (path == null) {
+                reservation.reject("Could not find a path with enough bandwidth between " + srcTask + " and " + dstTask + ".");
+                return false;
+            }
             for (NetworkLink networkLink : path.getEdgeList()) {
-                if (dataFlow.getBitRate() == 0) continue;
-                if (networkLink.reserveBandwidth(dataFlow.getBitRate())) {
-                    reservedNetworkMap.computeIfPresent(networkLink, (k, v) -> v + dataFlow.getBitRate());
-                    reservedNetworkMap.putIfAbsent(networkLink, dataFlow.getBitRate());
-                    LOGGER.debug("{}: {}: Reserved {} kbit/s on {}.", getSimulation().clockStr(), getClass().getSimpleName(), dataFlow.getBitRate() / 1000, networkLink);
-                } else {
-                    throw new IllegalStateException("Cannot allocate " + dataFlow.getBitRate() + " bandwidth at shortest path link " + networkLink +
-                        ", which connects the pipeline link " + dataFlow +
-                        ". Finding alternative routing paths is not implemented yet.");
-                }
+                reservation.addBandwidth(networkLink, dataFlow.getBitRate());
             }
+            if (paths != null) {
+                paths.put(dataFlow, path);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the MIPS of all tasks to the reservation.
+     */
+    private void prepareMips(ResourceReservation reservation) {
+        for (Task task : graph.vertexSet()) {
+            reservation.addMips((HostLeaf) task.getHost(), task.getRequestedMips());
         }
     }
 
-    private void releaseNetwork() {
-        for (Map.Entry<NetworkLink, Double> entry : reservedNetworkMap.entrySet()) {
-            NetworkLink link = entry.getKey();
-            double releaseBandwidth = entry.getValue();
+    /**
+     * Reserves all resources required by the application or none of them.
+     */
+    private boolean reserveResources() {
+        Map<DataFlow, GraphPath<SimEntity, NetworkLink>> paths = new HashMap<>();
+        ResourceReservation reservation = prepareReservation(paths);
+        if (!reservation.commit()) {
+            LOGGER.warn("{}: {}: Cannot start application. {}", getSimulation().clockStr(), getClass().getSimpleName(), reservation.getFailureReason());
+            return false;
+        }
+        record(reservation);
+        networkPaths.putAll(paths);
+        recordShortestPaths();
+        return true;
+    }
+
+    /**
+     * Releases all resources reserved by the application.
+     */
+    private void releaseResources() {
+        for (int i = 0; i < reservedBandwidth.size(); i++) {
+            NetworkLink link = reservedBandwidth.getResource(i);
+            double releaseBandwidth = reservedBandwidth.getAmount(i);
             link.releaseBandwidth(releaseBandwidth);
+            powerModel.bandwidthReleased(link, releaseBandwidth);
             LOGGER.debug("{}: {}: Released {} kbit/s on {}.", getSimulation().clockStr(), getClass().getSimpleName(), releaseBandwidth / 1000, link);
         }
-        reservedNetworkMap = new HashMap<>();
+        for (int i = 0; i < reservedMips.size(); i++) {
+            HostLeaf host = reservedMips.getResource(i);
+            double releaseMips = reservedMips.getAmount(i);
+            host.releaseMips(releaseMips);
+            powerModel.mipsReleased(host, releaseMips);
+            LOGGER.debug("{}: {}: Released {} MIPS on {}.", getSimulation().clockStr(), getClass().getSimpleName(), releaseMips, host);
+        }
+        reservedBandwidth.clear();
+        reservedMips.clear();
+        powerModel.reservationsCleared();
+        networkPaths.clear();
+        routedShortestPaths.clear();
+        powerNotifier.powerChanged();
     }
 
-    private void reserveCpu() {
-        for (Task task : graph.vertexSet()) {
-            HostLeaf host = (HostLeaf) task.getHost();
-            double requestedMips = task.getRequestedMips();
-            if (requestedMips == 0) continue;
-            if (host.reserveMips(requestedMips)) {
-                reservedCpuMap.computeIfPresent(host, (k, v) -> v + requestedMips);
-                reservedCpuMap.putIfAbsent(host, requestedMips);
-                LOGGER.debug("{}: {}: Reserved {} MIPS on {}.", getSimulation().clockStr(), getClass().getSimpleName(), requestedMips, host);
-            } else {
-                throw new IllegalStateException("Cannot allocate " + requestedMips + " MIPS on " + host +
-                    ". Missing resources error handling not implemented yet.");
-            }
+    /**
+     * Keeps track of the resources of a committed reservation.
+     */
+    private void record(ResourceReservation reservation) {
+        ReservationLedger<NetworkLink> bandwidth = reservation.getBandwidth();
+        for (int i = 0; i < bandwidth.size(); i++) {
+            reservedBandwidth.add(bandwidth.getResource(i), bandwidth.getAmount(i));
+            powerModel.bandwidthReserved(bandwidth.getResource(i), bandwidth.getAmount(i));
+            LOGGER.debug("{}: {}: Reserved {} kbit/s on {}.", getSimulation().clockStr(), getClass().getSimpleName(), bandwidth.getAmount(i) / 1000, bandwidth.getResource(i));
         }
+        ReservationLedger<HostLeaf> mips = reservation.getMips();
+        for (int i = 0; i < mips.size(); i++) {
+            reservedMips.add(mips.getResource(i), mips.getAmount(i));
+            powerModel.mipsReserved(mips.getResource(i), mips.getAmount(i));
+            LOGGER.debug("{}: {}: Reserved {} MIPS on {}.", getSimulation().clockStr(), getClass().getSimpleName(), mips.getAmount(i), mips.getResource(i));
+        }
+        powerNotifier.powerChanged();
     }
 
-    private void releaseCpu() {
-        for (Map.Entry<HostLeaf, Double> entry : reservedCpuMap.entrySet()) {
-            HostLeaf host = entry.getKey();
-            double releaseMips = entry.getValue();
-            entry.getKey().releaseMips(entry.getValue());
+    /**
+     * Releases a subset of the reserved bandwidth and MIPS.
+     */
+    private void release(ResourceReservation reservation) {
+        ReservationLedger<NetworkLink> bandwidth = reservation.getBandwidth();
+        for (int i = 0; i < bandwidth.size(); i++) {
+            NetworkLink link = bandwidth.getResource(i);
+            double releaseBandwidth = bandwidth.getAmount(i);
+            link.releaseBandwidth(releaseBandwidth);
+            reservedBandwidth.subtract(link, releaseBandwidth);
+            powerModel.bandwidthReleased(link, releaseBandwidth);
+            LOGGER.debug("{}: {}: Released {} kbit/s on {}.", getSimulation().clockStr(), getClass().getSimpleName(), releaseBandwidth / 1000, link);
+        }
+        ReservationLedger<HostLeaf> mips = reservation.getMips();
+        for (int i = 0; i < mips.size(); i++) {
+            HostLeaf host = mips.getResource(i);
+            double releaseMips = mips.getAmount(i);
+            host.releaseMips(releaseMips);
+            reservedMips.subtract(host, releaseMips);
+            powerModel.mipsReleased(host, releaseMips);
             LOGGER.debug("{}: {}: Released {} MIPS on {}.", getSimulation().clockStr(), getClass().getSimpleName(), releaseMips, host);
         }
-        reservedCpuMap = new HashMap<>();
+        powerNotifier.powerChanged();
     }
 
     @Override
@@ -204,21 +592,51 @@ public class Application extends CloudSimEntity implements PowerAware<PowerModel
     @Override
     public void setPowerModel(PowerModelApplication powerModel) {
         this.powerModel = powerModel;
+        // The new power model has to know about all existing reservations
+        for (int i = 0; i < reservedBandwidth.size(); i++) {
+            powerModel.bandwidthReserved(reservedBandwidth.getResource(i), reservedBandwidth.getAmount(i));
+        }
+        for (int i = 0; i < reservedMips.size(); i++) {
+            powerModel.mipsReserved(reservedMips.getResource(i), reservedMips.getAmount(i));
+        }
+        powerNotifier.powerChanged();
+    }
+
+    /**
+     * Listeners are notified whenever the application starts, stops, reserves or releases resources.
+     * Changes in the power of shared links or hosts with power models that are not proportional are not reported.
+     */
+    @Override
+    public PowerNotifier getPowerNotifier() {
+        return powerNotifier;
     }
 
     public boolean isRunning() {
         return running;
     }
 
+    /**
+     * Returns true if the application was stopped because its data flows could not be routed any more.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
     public DirectedAcyclicGraph<Task, DataFlow> getGraph() {
         return graph;
     }
 
-    public Map<NetworkLink, Double> getReservedNetworkMap() {
-        return reservedNetworkMap;
+    /**
+     * Bandwidth reserved by the application per network link. Must not be modified by callers.
+     */
+    public ReservationLedger<NetworkLink> getReservedBandwidth() {
+        return reservedBandwidth;
     }
 
-    public Map<HostLeaf, Double> getReservedCpuMap() {
-        return reservedCpuMap;
+    /**
+     * MIPS reserved by the application per host. Must not be modified by callers.
+     */
+    public ReservationLedger<HostLeaf> getReservedMips() {
+        return reservedMips;
     }
 }
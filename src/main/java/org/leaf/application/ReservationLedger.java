@@ -0,0 +1,146 @@
+package org.leaf.application;
+
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Amounts of a resource (bandwidth, MIPS) reserved on a set of links or hosts.
+ *
+ * Applications only reserve resources on a handful of links and hosts, so entries are kept in parallel arrays
+ * indexed by dense slots and looked up by a linear identity scan. Neither lookups nor updates allocate objects,
+ * only growing beyond the current capacity does. Entries can be iterated without boxing:
+ *
+ * <pre>
+ * for (int i = 0; i &lt; ledger.size(); i++) {
+ *     use(ledger.getResource(i), ledger.getAmount(i));
+ * }
+ * </pre>
+ *
+ * Removing an entry moves the last entry into its slot, so slots are only stable as long as nothing is removed.
+ */
+public class ReservationLedger<T> {
+
+    private static final int INITIAL_CAPACITY = 4;
+    /** Remaining amounts up to this fraction of the recorded amount are residue of floating-point rounding */
+    private static final double RESIDUE = 1e-9;
+
+    private Object[] resources = new Object[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Adds an amount to the entry of a resource. Amounts less or equal to 0 are ignored.
+     */
+    public void add(T resource, double amount) {
+        if (amount <= 0) return;
+        int slot = slotOf(resource);
+        if (slot >= 0) {
+            amounts[slot] += amount;
+            return;
+        }
+        if (size == resources.length) {
+            resources = Arrays.copyOf(resources, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        resources[size] = resource;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * Subtracts an amount from the entry of a resource and removes the entry once nothing is left. An entry is also
+     * removed if it would only keep a rounding residue, e.g. after subtracting several parts of an amount that was
+     * added at once.
+     *
+     * @return the remaining amount
+     */
+    public double subtract(T resource, double amount) {
+        int slot = slotOf(resource);
+        if (slot < 0) return 0;
+        double remaining = amounts[slot] - amount;
+        if (remaining > amounts[slot] * RESIDUE) {
+            amounts[slot] = remaining;
+            return remaining;
+        }
+        removeSlot(slot);
+        return 0;
+    }
+
+    /**
+     * Returns the amount reserved on a resource or 0 if there is no entry.
+     */
+    public double get(T resource) {
+        int slot = slotOf(resource);
+        return slot < 0 ? 0 : amounts[slot];
+    }
+
+    public boolean contains(T resource) {
+        return slotOf(resource) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getResource(int slot) {
+        checkSlot(slot);
+        return (T) resources[slot];
+    }
+
+    public double getAmount(int slot) {
+        checkSlot(slot);
+        return amounts[slot];
+    }
+
+    public void forEach(ObjDoubleConsumer<T> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(getResource(i), amounts[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries but keeps the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(resources, 0, size, null);
+        size = 0;
+    }
+
+    private int slotOf(T resource) {
+        for (int i = 0; i < size; i++) {
+            if (resources[i] == resource) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        int last = size - 1;
+        resources[slot] = resources[last];
+        amounts[slot] = amounts[last];
+        resources[last] = null;
+        size = last;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " is out of bounds for " + size + " entries.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(resources[i]).append('=').append(amounts[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,129 @@
+package org.leaf.application;
+
+import org.leaf.host.HostLeaf;
+import org.leaf.infrastructure.NetworkLink;
+
+import static java.lang.String.format;
+
+/**
+ * All-or-nothing reservation of bandwidth on network links and MIPS on hosts.
+ *
+ * Requested resources are only collected until {@link #commit()} is called. The commit first checks whether all
+ * links and hosts have enough capacity left and only then reserves the resources, so a failed commit has no side effects.
+ */
+public class ResourceReservation {
+
+    private final ReservationLedger<NetworkLink> bandwidth = new ReservationLedger<>();
+    private final ReservationLedger<HostLeaf> mips = new ReservationLedger<>();
+    private String failureReason = null;
+    private boolean rejected = false;
+
+    public ResourceReservation addBandwidth(NetworkLink link, double bandwidth) {
+        this.bandwidth.add(link, bandwidth);
+        return this;
+    }
+
+    public ResourceReservation addMips(HostLeaf host, double mips) {
+        this.mips.add(host, mips);
+        return this;
+    }
+
+    /**
+     * Marks the reservation as infeasible, e.g. because a required resource does not exist.
+     */
+    public ResourceReservation reject(String reason) {
+        rejected = true;
+        failureReason = reason;
+        return this;
+    }
+
+    /**
+     * Checks whether all requested resources are available without reserving them.
+     */
+    public boolean isFeasible() {
+        if (rejected) {
+            return false;
+        }
+        for (int i = 0; i < bandwidth.size(); i++) {
+            if (!bandwidth.getResource(i).canReserveBandwidth(bandwidth.getAmount(i))) {
+                failureReason = format("Cannot allocate %f bandwidth on %s.", bandwidth.getAmount(i), bandwidth.getResource(i));
+                return false;
+            }
+        }
+        for (int i = 0; i < mips.size(); i++) {
+            if (!mips.getResource(i).canReserveMips(mips.getAmount(i))) {
+                failureReason = format("Cannot allocate %f MIPS on %s.", mips.getAmount(i), mips.getResource(i));
+                return false;
+            }
+        }
+        failureReason = null;
+        return true;
+    }
+
+    /**
+     * Reserves all requested resources if all of them are available.
+     *
+     * @return true if all resources were reserved, false if none were reserved
+     */
+    public boolean commit() {
+        if (!isFeasible()) {
+            return false;
+        }
+        for (int i = 0; i < bandwidth.size(); i++) {
+            if (!bandwidth.getResource(i).reserveBandwidth(bandwidth.getAmount(i))) {
+                failureReason = format("Cannot allocate %f bandwidth on %s.", bandwidth.getAmount(i), bandwidth.getResource(i));
+                rollback(i, 0);
+                return false;
+            }
+        }
+        for (int i = 0; i < mips.size(); i++) {
+            if (!mips.getResource(i).reserveMips(mips.getAmount(i))) {
+                failureReason = format("Cannot allocate %f MIPS on %s.", mips.getAmount(i), mips.getResource(i));
+                rollback(bandwidth.size(), i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases all resources of a committed reservation.
+     */
+    public void release() {
+        rollback(bandwidth.size(), mips.size());
+    }
+
+    /**
+     * Releases the bandwidth and MIPS that were reserved in the slots before the failed ones.
+     */
+    private void rollback(int reservedLinks, int reservedHosts) {
+        for (int i = 0; i < reservedLinks; i++) {
+            bandwidth.getResource(i).releaseBandwidth(bandwidth.getAmount(i));
+        }
+        for (int i = 0; i < reservedHosts; i++) {
+            mips.getResource(i).releaseMips(mips.getAmount(i));
+        }
+    }
+
+    /**
+     * Returns the reason why the last check or commit failed or null if it succeeded.
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * Returns the bandwidth requested on a link so far.
+     */
+    public double getBandwidth(NetworkLink link) {
+        return bandwidth.get(link);
+    }
+
+    public ReservationLedger<NetworkLink> getBandwidth() {
+        return bandwidth;
+    }
+
+    public ReservationLedger<HostLeaf> getMips() {
+        return mips;
+    }
+}
@@ -3,18 +3,30 @@ package org.leaf.host;
 import org.cloudbus.cloudsim.hosts.HostSimple;
 import org.cloudbus.cloudsim.resources.Pe;
 import org.cloudbus.cloudsim.resources.PeSimple;
+import org.leaf.infrastructure.AtomicCapacity;
 import org.leaf.infrastructure.ComputeNode;
+import org.leaf.power.PowerNotifier;
+import org.leaf.power.PowerObservable;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.format;
 
 /**
  * Host that works with the LEAF infrastructure and application model
  */
-public class HostLeaf extends HostSimple {
+public class HostLeaf extends HostSimple implements PowerObservable {
 
-    private double usedMips;
+    private final AtomicCapacity usedMips = new AtomicCapacity();
+    /** Incremented after every change of the used MIPS */
+    private final AtomicLong version = new AtomicLong();
+    private final PowerNotifier powerNotifier = new PowerNotifier(() -> getPowerModel().getPowerMeasurement());
+    private HostUtilizationIndex utilizationIndex = null;
+    private int utilizationIndexPosition;
+    /** True while the host is queued in its utilization index */
+    private final AtomicBoolean utilizationIndexChanged = new AtomicBoolean();
 
     public HostLeaf(long mips) {
         this(0, 0, 0, List.of(new PeSimple(mips)));
@@ -26,31 +38,84 @@ public class HostLeaf extends HostSimple {
 
     @Override
     public double getCpuPercentUtilization() {
-        return usedMips / getTotalMipsCapacity();
+        return usedMips.getReserved() / getTotalMipsCapacity();
     }
 
     @Override
     public double getCpuMipsUtilization() {
-        return usedMips;
+        return usedMips.getReserved();
     }
 
+    /**
+     * Checks whether the given MIPS can be reserved without reserving them.
+     */
+    public boolean canReserveMips(double reserveMips) {
+        return usedMips.canReserve(reserveMips, getTotalMipsCapacity());
+    }
+
+    /**
+     * Reserves the given MIPS if they are available. Safe to be called concurrently.
+     */
     public boolean reserveMips(double reserveMips) {
         setActive(true);
-        double newUsedMips = usedMips + reserveMips;
-        if (newUsedMips > getTotalMipsCapacity()) {
-            return false;
-        } else {
-            usedMips = newUsedMips;
-            return true;
+        boolean reserved = usedMips.tryReserve(reserveMips, getTotalMipsCapacity());
+        if (reserved) {
+            version.incrementAndGet();
+            updateUtilizationIndex();
+        }
+        powerNotifier.powerChanged();  // activating the host may change its power even if nothing was reserved
+        return reserved;
+    }
+
+    /**
+     * Returns a counter that changes whenever the used MIPS of the host change.
+     * Allows power models to cache their measurements.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Listeners are notified about changes of the used MIPS. Whoever changes the active state of the host
+     * has to call {@link PowerNotifier#powerChanged()} afterwards.
+     */
+    @Override
+    public PowerNotifier getPowerNotifier() {
+        return powerNotifier;
+    }
+
+    void setUtilizationIndex(HostUtilizationIndex utilizationIndex, int position) {
+        if (this.utilizationIndex != null) {
+            throw new IllegalStateException(this + " is already part of a utilization index.");
+        }
+        this.utilizationIndex = utilizationIndex;
+        this.utilizationIndexPosition = position;
+    }
+
+    int getUtilizationIndexPosition() {
+        return utilizationIndexPosition;
+    }
+
+    void utilizationIndexUpdated() {
+        utilizationIndexChanged.set(false);
+    }
+
+    private void updateUtilizationIndex() {
+        if (utilizationIndex != null && utilizationIndexChanged.compareAndSet(false, true)) {
+            utilizationIndex.changed(this);
         }
     }
 
+    /**
+     * Releases the given MIPS. Safe to be called concurrently.
+     */
     public void releaseMips(double releaseMips) {
-        double newUsedMips = usedMips - releaseMips;
-        if (newUsedMips < 0) {
-            throw new RuntimeException(format("Cannot release %f MIPS because only %f are reserved.", releaseMips, usedMips));
+        if (!usedMips.tryRelease(releaseMips)) {
+            throw new RuntimeException(format("Cannot release %f MIPS because only %f are reserved.", releaseMips, usedMips.getReserved()));
         }
-        usedMips = newUsedMips;
+        version.incrementAndGet();
+        updateUtilizationIndex();
+        powerNotifier.powerChanged();
         if (getIdleShutdownDeadline() >= 0) {
             ((ComputeNode) getDatacenter()).tryToShutDown(this);
         }
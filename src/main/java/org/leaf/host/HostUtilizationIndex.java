@@ -0,0 +1,148 @@
+package org.leaf.host;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Index over the CPU utilization of a set of hosts that returns the least and the most utilized host below a
+ * threshold without scanning all hosts.
+ *
+ * Hosts are kept in the order they were added. Two segment trees over these positions store the least and the most
+ * utilized host below the threshold of each segment; ties are resolved in favor of the host that was added first.
+ *
+ * Reserving or releasing MIPS does not lock the index: a host whose utilization changed only queues itself in a
+ * lock-free queue, at most once until the index picks the change up. Lookups first update the trees for all queued
+ * hosts, which takes O(log n) per changed host, and then answer in O(1). A host can only be part of a single index.
+ */
+public class HostUtilizationIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    private final double threshold;
+    private HostLeaf[] hosts = new HostLeaf[INITIAL_CAPACITY];
+    private double[] utilizations = new double[INITIAL_CAPACITY];
+    private int size = 0;
+    /** Heap-ordered trees with the leaves at [capacity, 2 * capacity), each node holds a host position or NONE */
+    private int[] leastUtilized = new int[2 * INITIAL_CAPACITY];
+    private int[] mostUtilized = new int[2 * INITIAL_CAPACITY];
+    /** Hosts whose utilization changed since the trees were last updated */
+    private final Queue<HostLeaf> changedHosts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param threshold only hosts whose utilization is strictly below the threshold are returned by the lookups
+     */
+    public HostUtilizationIndex(double threshold) {
+        this.threshold = threshold;
+        Arrays.fill(leastUtilized, NONE);
+        Arrays.fill(mostUtilized, NONE);
+    }
+
+    public synchronized void add(HostLeaf host) {
+        if (size == hosts.length) {
+            grow();
+        }
+        int position = size++;
+        hosts[position] = host;
+        host.setUtilizationIndex(this, position);
+        update(position);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the host at the given position, i.e. the one that was added as {@code position}-th host.
+     */
+    public synchronized HostLeaf get(int position) {
+        return hosts[position];
+    }
+
+    /**
+     * Returns the host with the lowest utilization below the threshold or null if there is none.
+     */
+    public synchronized HostLeaf getLeastUtilizedBelowThreshold() {
+        applyChanges();
+        int position = leastUtilized[1];
+        return position == NONE ? null : hosts[position];
+    }
+
+    /**
+     * Returns the host with the highest utilization below the threshold or null if there is none.
+     */
+    public synchronized HostLeaf getMostUtilizedBelowThreshold() {
+        applyChanges();
+        int position = mostUtilized[1];
+        return position == NONE ? null : hosts[position];
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Called by a host after its utilization changed. Does not block.
+     */
+    void changed(HostLeaf host) {
+        changedHosts.add(host);
+    }
+
+    private void applyChanges() {
+        HostLeaf host;
+        while ((host = changedHosts.poll()) != null) {
+            // Clear the flag before reading the utilization, so that later changes queue the host again
+            host.utilizationIndexUpdated();
+            update(host.getUtilizationIndexPosition());
+        }
+    }
+
+    private void update(int position) {
+        double utilization = hosts[position].getCpuPercentUtilization();
+        utilizations[position] = utilization;
+        int node = hosts.length + position;
+        int leaf = utilization < threshold ? position : NONE;
+        leastUtilized[node] = leaf;
+        mostUtilized[node] = leaf;
+        for (node /= 2; node >= 1; node /= 2) {
+            updateNode(node);
+        }
+    }
+
+    private void updateNode(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        leastUtilized[node] = pick(leastUtilized[left], leastUtilized[right], false);
+        mostUtilized[node] = pick(mostUtilized[left], mostUtilized[right], true);
+    }
+
+    /**
+     * Returns the better of two host positions, the left one covers the earlier positions and wins ties.
+     */
+    private int pick(int left, int right, boolean most) {
+        if (left == NONE) return right;
+        if (right == NONE) return left;
+        if (most) {
+            return utilizations[right] > utilizations[left] ? right : left;
+        }
+        return utilizations[right] < utilizations[left] ? right : left;
+    }
+
+    private void grow() {
+        int capacity = hosts.length * 2;
+        hosts = Arrays.copyOf(hosts, capacity);
+        utilizations = Arrays.copyOf(utilizations, capacity);
+        int[] newLeastUtilized = new int[2 * capacity];
+        int[] newMostUtilized = new int[2 * capacity];
+        Arrays.fill(newLeastUtilized, NONE);
+        Arrays.fill(newMostUtilized, NONE);
+        System.arraycopy(leastUtilized, capacity / 2, newLeastUtilized, capacity, size);
+        System.arraycopy(mostUtilized, capacity / 2, newMostUtilized, capacity, size);
+        leastUtilized = newLeastUtilized;
+        mostUtilized = newMostUtilized;
+        for (int node = capacity - 1; node >= 1; node--) {
+            updateNode(node);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.leaf.infrastructure;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reserved amount of a resource with a limited capacity which can be reserved and released concurrently.
+ *
+ * The amount is stored as the bits of a double in an {@link AtomicLong} and updated via compare-and-set, so checking
+ * the capacity and reserving happen atomically. Without contention the results are identical to plain arithmetic
+ * on a double field.
+ */
+public class AtomicCapacity {
+
+    private final AtomicLong reservedBits = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    public double getReserved() {
+        return Double.longBitsToDouble(reservedBits.get());
+    }
+
+    /**
+     * Checks whether the given amount can be reserved without reserving it.
+     */
+    public boolean canReserve(double amount, double capacity) {
+        return getReserved() + amount <= capacity;
+    }
+
+    /**
+     * Reserves the given amount if it does not exceed the capacity.
+     *
+     * @return true if the amount was reserved
+     */
+    public boolean tryReserve(double amount, double capacity) {
+        while (true) {
+            long bits = reservedBits.get();
+            double newReserved = Double.longBitsToDouble(bits) + amount;
+            if (newReserved > capacity) {
+                return false;
+            }
+            if (reservedBits.compareAndSet(bits, Double.doubleToRawLongBits(newReserved))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the given amount if at least this amount is reserved.
+     *
+     * @return true if the amount was released
+     */
+    public boolean tryRelease(double amount) {
+        while (true) {
+            long bits = reservedBits.get();
+            double newReserved = Double.longBitsToDouble(bits) - amount;
+            if (newReserved < 0) {
+                return false;
+            }
+            if (reservedBits.compareAndSet(bits, Double.doubleToRawLongBits(newReserved))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(getReserved());
+    }
+}
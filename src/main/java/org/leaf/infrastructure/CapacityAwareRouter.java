@@ -0,0 +1,70 @@
+package org.leaf.infrastructure;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.jgrapht.GraphPath;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Routes traffic over the shortest path that has enough residual bandwidth.
+ *
+ * The shortest path is tried first. Only if one of its links is saturated, up to k - 1 alternative paths are
+ * considered, which are computed once per pair of entities and cached by the {@link InfrastructureGraph}.
+ * Residual bandwidth is never cached, so checking a path only costs one pass over its links.
+ */
+public class CapacityAwareRouter {
+
+    public static final int DEFAULT_CANDIDATE_PATHS = 3;
+
+    private final InfrastructureGraph infrastructureGraph;
+    private final int candidatePaths;
+
+    public CapacityAwareRouter(InfrastructureGraph infrastructureGraph, int candidatePaths) {
+        if (candidatePaths < 1) {
+            throw new IllegalArgumentException("At least one candidate path is required but got " + candidatePaths);
+        }
+        this.infrastructureGraph = infrastructureGraph;
+        this.candidatePaths = candidatePaths;
+    }
+
+    /**
+     * Returns the shortest candidate path with at least the given residual bandwidth on all links or null if there is none.
+     */
+    public GraphPath<SimEntity, NetworkLink> findPath(SimEntity src, SimEntity dst, double bandwidth) {
+        return findPath(src, dst, bandwidth, link -> 0);
+    }
+
+    /**
+     * Returns the shortest candidate path with at least the given residual bandwidth on all links or null if there is none.
+     *
+     * @param pendingBandwidth bandwidth per link that is about to be reserved (positive) or released (negative)
+     *                         and must be considered in addition to the currently used bandwidth
+     */
+    public GraphPath<SimEntity, NetworkLink> findPath(SimEntity src, SimEntity dst, double bandwidth,
+                                                      ToDoubleFunction<NetworkLink> pendingBandwidth) {
+        GraphPath<SimEntity, NetworkLink> shortestPath = infrastructureGraph.getPath(src, dst);
+        if (shortestPath == null || hasCapacity(shortestPath, bandwidth, pendingBandwidth)) {
+            return shortestPath;
+        }
+        List<GraphPath<SimEntity, NetworkLink>> paths = infrastructureGraph.getPaths(src, dst, candidatePaths);
+        for (int i = 1; i < paths.size(); i++) {
+            if (hasCapacity(paths.get(i), bandwidth, pendingBandwidth)) {
+                return paths.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasCapacity(GraphPath<SimEntity, NetworkLink> path, double bandwidth, ToDoubleFunction<NetworkLink> pendingBandwidth) {
+        if (bandwidth <= 0) {
+            return true;
+        }
+        for (NetworkLink link : path.getEdgeList()) {
+            if (!link.canReserveBandwidth(bandwidth + pendingBandwidth.applyAsDouble(link))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
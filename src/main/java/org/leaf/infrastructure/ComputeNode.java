@@ -45,6 +45,7 @@ public class ComputeNode extends DatacenterSimple implements LocationAware {
             Host host = (HostLeaf) evt.getData();
             if(host.getCpuMipsUtilization() == 0){
                 host.setActive(false);
+                ((HostLeaf) host).getPowerNotifier().powerChanged();
             } else {
                 LOGGER.debug("Cannot power off {}. There are still {} MIPS reserved.", this, host.getCpuMipsUtilization());
             }
@@ -0,0 +1,357 @@
+package org.leaf.infrastructure;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphPath;
+import org.jgrapht.graph.GraphWalk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Compact shortest path engine that mirrors the links of an infrastructure graph in primitive arrays.
+ *
+ * Links between static entities are stored in compressed sparse row (CSR) format, which is rebuilt lazily on the first
+ * query after the static topology changed. Links of mobile entities change frequently and are therefore kept in a
+ * small dynamic edge area with per-vertex adjacency arrays, so moving taxis never trigger a rebuild.
+ *
+ * Dijkstra's algorithm runs on reusable primitive arrays and a binary heap of vertex indices, so a query only
+ * allocates the returned path. The arrays are kept per thread, so queries can run concurrently as long as the
+ * topology is not modified and {@link #prepare()} was called before.
+ */
+public class CsrGraph {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Graph<SimEntity, NetworkLink> graph;
+    private final Predicate<SimEntity> isMobile;
+
+    // Vertices
+    private final Map<SimEntity, Integer> vertexIndices = new HashMap<>();
+    private final IdRegistry<SimEntity> vertices = new IdRegistry<>();
+
+    // Static links in CSR format: the outgoing links of vertex v are stored at [offsets[v], offsets[v + 1])
+    private final Set<NetworkLink> staticLinks = new LinkedHashSet<>();
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private double[] weights = new double[0];
+    private NetworkLink[] links = new NetworkLink[0];
+    private boolean dirty = false;
+
+    // Dynamic links of mobile entities: the outgoing links of vertex v are the first dynamicOutCount[v] slots in dynamicOut[v]
+    private final IdRegistry<NetworkLink> dynamicLinks = new IdRegistry<>();
+    private int[] dynamicTargets = new int[INITIAL_CAPACITY];
+    private double[] dynamicWeights = new double[INITIAL_CAPACITY];
+    private int[][] dynamicOut = new int[INITIAL_CAPACITY][];
+    private int[] dynamicOutCount = new int[INITIAL_CAPACITY];
+    private final Map<NetworkLink, Integer> dynamicSlots = new HashMap<>();
+
+    private int vertexCapacity = INITIAL_CAPACITY;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    public CsrGraph(Graph<SimEntity, NetworkLink> graph, Predicate<SimEntity> isMobile) {
+        this.graph = graph;
+        this.isMobile = isMobile;
+        for (SimEntity entity : graph.vertexSet()) {
+            vertexAdded(entity);
+        }
+        for (NetworkLink link : graph.edgeSet()) {
+            linkAdded(link);
+        }
+    }
+
+    /**
+     * Must be called after a vertex was added to the graph.
+     */
+    public void vertexAdded(SimEntity entity) {
+        indexOf(entity);
+    }
+
+    /**
+     * Must be called after a link was added to the graph.
+     */
+    public void linkAdded(NetworkLink link) {
+        SimEntity src = graph.getEdgeSource(link);
+        SimEntity dst = graph.getEdgeTarget(link);
+        int u = indexOf(src);
+        int v = indexOf(dst);
+        if (!isMobile.test(src) && !isMobile.test(dst)) {
+            staticLinks.add(link);
+            dirty = true;
+            return;
+        }
+        int slot = dynamicLinks.register(link);
+        if (slot >= dynamicTargets.length) {
+            dynamicTargets = Arrays.copyOf(dynamicTargets, dynamicTargets.length * 2);
+            dynamicWeights = Arrays.copyOf(dynamicWeights, dynamicWeights.length * 2);
+        }
+        dynamicTargets[slot] = v;
+        dynamicWeights[slot] = graph.getEdgeWeight(link);
+        dynamicSlots.put(link, slot);
+        if (dynamicOut[u] == null) {
+            dynamicOut[u] = new int[4];
+        } else if (dynamicOutCount[u] == dynamicOut[u].length) {
+            dynamicOut[u] = Arrays.copyOf(dynamicOut[u], dynamicOutCount[u] * 2);
+        }
+        dynamicOut[u][dynamicOutCount[u]++] = slot;
+    }
+
+    /**
+     * Must be called after a link was removed from the graph.
+     */
+    public void linkRemoved(NetworkLink link, SimEntity src) {
+        if (staticLinks.remove(link)) {
+            dirty = true;
+            return;
+        }
+        Integer slot = dynamicSlots.remove(link);
+        if (slot == null) return;
+        dynamicLinks.release(slot);
+        int u = vertexIndices.get(src);
+        int[] out = dynamicOut[u];
+        for (int i = 0; i < dynamicOutCount[u]; i++) {
+            if (out[i] == slot) {
+                out[i] = out[--dynamicOutCount[u]];
+                break;
+            }
+        }
+    }
+
+    /**
+     * Must be called after a vertex and all its links were removed from the graph and reported via {@link #linkRemoved}.
+     */
+    public void vertexRemoved(SimEntity entity) {
+        Integer index = vertexIndices.remove(entity);
+        if (index == null) return;
+        vertices.release(index);
+        dynamicOut[index] = null;
+        dynamicOutCount[index] = 0;
+    }
+
+    /**
+     * Returns the shortest path between two entities or null if no path exists.
+     */
+    public GraphPath<SimEntity, NetworkLink> getPath(SimEntity src, SimEntity dst) {
+        if (!vertexIndices.containsKey(src) || !vertexIndices.containsKey(dst)) {
+            throw new IllegalArgumentException("Cannot find path.");
+        }
+        int source = vertexIndices.get(src);
+        int target = vertexIndices.get(dst);
+        Search search = search();
+        if (!search.run(source, target)) {
+            return null;
+        }
+        List<NetworkLink> edgeList = new ArrayList<>();
+        List<SimEntity> vertexList = new ArrayList<>();
+        int v = target;
+        vertexList.add(dst);
+        while (v != source) {
+            int previousLink = search.previousLinks[v];
+            NetworkLink link = previousLink >= 0 ? links[previousLink] : dynamicLinks.get(-previousLink - 1);
+            edgeList.add(link);
+            v = vertexIndices.get(graph.getEdgeSource(link));
+            vertexList.add(vertices.get(v));
+        }
+        Collections.reverse(edgeList);
+        Collections.reverse(vertexList);
+        return new GraphWalk<>(graph, src, dst, vertexList, edgeList, search.distances[target]);
+    }
+
+    /**
+     * Returns the delay of the shortest path between two entities or {@link Double#POSITIVE_INFINITY} if no path exists.
+     */
+    public double getDelay(SimEntity src, SimEntity dst) {
+        Integer source = vertexIndices.get(src);
+        Integer target = vertexIndices.get(dst);
+        if (source == null || target == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Search search = search();
+        return search.run(source, target) ? search.distances[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Brings the CSR arrays up to date. Must be called before querying paths from multiple threads.
+     */
+    public void prepare() {
+        if (dirty) {
+            rebuild();
+        }
+    }
+
+    private Search search() {
+        prepare();
+        Search search = searches.get();
+        search.ensureCapacity();
+        return search;
+    }
+
+    /**
+     * Rebuilds the CSR arrays from the static links.
+     *
+     * The offsets cover the capacity of the vertex arrays, so adding vertices only requires a rebuild once they grow.
+     */
+    private void rebuild() {
+        int vertexCount = vertexCapacity;
+        int[] newOffsets = new int[vertexCount + 1];
+        for (NetworkLink link : staticLinks) {
+            newOffsets[vertexIndices.get(graph.getEdgeSource(link)) + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            newOffsets[v + 1] += newOffsets[v];
+        }
+        int[] next = Arrays.copyOf(newOffsets, vertexCount);
+        targets = new int[staticLinks.size()];
+        weights = new double[staticLinks.size()];
+        links = new NetworkLink[staticLinks.size()];
+        for (NetworkLink link : staticLinks) {
+            int i = next[vertexIndices.get(graph.getEdgeSource(link))]++;
+            targets[i] = vertexIndices.get(graph.getEdgeTarget(link));
+            weights[i] = graph.getEdgeWeight(link);
+            links[i] = link;
+        }
+        offsets = newOffsets;
+        dirty = false;
+    }
+
+    private int indexOf(SimEntity entity) {
+        Integer index = vertexIndices.get(entity);
+        if (index != null) {
+            return index;
+        }
+        int i = vertices.register(entity);
+        vertexIndices.put(entity, i);
+        if (i >= vertexCapacity) {
+            vertexCapacity *= 2;
+            dynamicOut = Arrays.copyOf(dynamicOut, vertexCapacity);
+            dynamicOutCount = Arrays.copyOf(dynamicOutCount, vertexCapacity);
+        }
+        if (i + 1 >= offsets.length) {
+            dirty = true;  // the new vertex must be covered by the offsets
+        }
+        return i;
+    }
+
+    /**
+     * State of Dijkstra's algorithm, only valid for vertices whose stamp equals the stamp of the current query
+     */
+    private final class Search {
+        double[] distances = new double[0];
+        int[] previousLinks = new int[0];  // >= 0: static link index, < 0: -(dynamic slot + 1)
+        private int[] stamps = new int[0];
+        private int stamp = 0;
+        private int[] heap = new int[0];
+        private int[] heapPositions = new int[0];
+        private int heapSize = 0;
+
+        void ensureCapacity() {
+            if (distances.length < vertexCapacity) {
+                distances = Arrays.copyOf(distances, vertexCapacity);
+                previousLinks = Arrays.copyOf(previousLinks, vertexCapacity);
+                stamps = Arrays.copyOf(stamps, vertexCapacity);
+                heap = Arrays.copyOf(heap, vertexCapacity);
+                heapPositions = Arrays.copyOf(heapPositions, vertexCapacity);
+            }
+        }
+
+        /**
+         * Runs Dijkstra's algorithm until the target is settled.
+         *
+         * @return true if the target is reachable
+         */
+        boolean run(int source, int target) {
+            if (++stamp == 0) {  // overflow, reset all stamps
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            heapSize = 0;
+            distances[source] = 0;
+            stamps[source] = stamp;
+            push(source);
+            while (heapSize > 0) {
+                int u = pop();
+                if (u == target) {
+                    return true;
+                }
+                double distance = distances[u];
+                for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                    relax(targets[i], distance + weights[i], i);
+                }
+                int[] out = dynamicOut[u];
+                for (int i = 0; i < dynamicOutCount[u]; i++) {
+                    int slot = out[i];
+                    relax(dynamicTargets[slot], distance + dynamicWeights[slot], -slot - 1);
+                }
+            }
+            return false;
+        }
+
+        private void relax(int v, double distance, int link) {
+            if (stamps[v] != stamp) {
+                stamps[v] = stamp;
+                distances[v] = distance;
+                previousLinks[v] = link;
+                push(v);
+            } else if (distance < distances[v] && heapPositions[v] >= 0) {
+                distances[v] = distance;
+                previousLinks[v] = link;
+                siftUp(heapPositions[v]);
+            }
+        }
+
+        private void push(int v) {
+            heap[heapSize] = v;
+            heapPositions[v] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        private int pop() {
+            int top = heap[0];
+            heapPositions[top] = -1;
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                heap[0] = last;
+                heapPositions[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int position) {
+            int v = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (distances[heap[parent]] <= distances[v]) break;
+                heap[position] = heap[parent];
+                heapPositions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = v;
+            heapPositions[v] = position;
+        }
+
+        private void siftDown(int position) {
+            int v = heap[position];
+            int half = heapSize >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < heapSize && distances[heap[child + 1]] < distances[heap[child]]) {
+                    child++;
+                }
+                if (distances[v] <= distances[heap[child]]) break;
+                heap[position] = heap[child];
+                heapPositions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = v;
+            heapPositions[v] = position;
+        }
+    }
+}
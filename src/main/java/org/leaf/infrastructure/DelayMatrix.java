@@ -0,0 +1,268 @@
+package org.leaf.infrastructure;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.jgrapht.Graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Maintains the all-pairs delays between the static entities of the infrastructure graph.
+ *
+ * Mobile entities are treated as an overlay: Their delays are derived from the delays of the static entities they
+ * are linked to, so topology changes caused by mobile entities do not affect the matrix. Mobile entities are never
+ * used to route traffic between other entities.
+ *
+ * The matrix is computed on the first request and afterwards updated incrementally:
+ * - Adding a static link relaxes all pairs over the new link.
+ * - Removing a static link or entity recomputes only the rows of sources whose shortest paths may have used it.
+ */
+class DelayMatrix {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Graph<SimEntity, NetworkLink> graph;
+    private final Predicate<SimEntity> isMobile;
+
+    private final Map<SimEntity, Integer> indices = new HashMap<>();
+    private final Deque<Integer> freeIndices = new ArrayDeque<>();
+    private SimEntity[] entities = new SimEntity[0];
+    private double[][] delays = new double[0][0];
+    private int size = 0;
+    private boolean initialized = false;
+
+    DelayMatrix(Graph<SimEntity, NetworkLink> graph, Predicate<SimEntity> isMobile) {
+        this.graph = graph;
+        this.isMobile = isMobile;
+    }
+
+    /**
+     * Returns the delay of the shortest path between two entities or {@link Double#POSITIVE_INFINITY} if no path exists.
+     */
+    double getDelay(SimEntity src, SimEntity dst) {
+        if (!graph.containsVertex(src) || !graph.containsVertex(dst)) {
+            return INFINITY;
+        }
+        if (src == dst) {
+            return 0;
+        }
+        if (!initialized) {
+            initialize();
+        }
+        boolean srcMobile = isMobile.test(src);
+        boolean dstMobile = isMobile.test(dst);
+        if (!srcMobile && !dstMobile) {
+            return getStaticDelay(src, dst);
+        }
+
+        double delay = INFINITY;
+        for (NetworkLink link : graph.getAllEdges(src, dst)) {
+            delay = Math.min(delay, graph.getEdgeWeight(link));
+        }
+        if (srcMobile) {
+            for (NetworkLink outgoingLink : graph.outgoingEdgesOf(src)) {
+                SimEntity hop = graph.getEdgeTarget(outgoingLink);
+                if (isMobile.test(hop)) continue;
+                delay = Math.min(delay, graph.getEdgeWeight(outgoingLink) + getDelayFromStatic(hop, dst, dstMobile));
+            }
+        } else {
+            delay = Math.min(delay, getDelayFromStatic(src, dst, true));
+        }
+        return delay;
+    }
+
+    private double getDelayFromStatic(SimEntity src, SimEntity dst, boolean dstMobile) {
+        if (!dstMobile) {
+            return getStaticDelay(src, dst);
+        }
+        double delay = INFINITY;
+        for (NetworkLink incomingLink : graph.incomingEdgesOf(dst)) {
+            SimEntity hop = graph.getEdgeSource(incomingLink);
+            if (isMobile.test(hop)) continue;
+            delay = Math.min(delay, getStaticDelay(src, hop) + graph.getEdgeWeight(incomingLink));
+        }
+        return delay;
+    }
+
+    private double getStaticDelay(SimEntity src, SimEntity dst) {
+        if (src == dst) return 0;
+        Integer i = indices.get(src);
+        Integer j = indices.get(dst);
+        if (i == null || j == null) {
+            return INFINITY;
+        }
+        return delays[i][j];
+    }
+
+    /**
+     * Must be called after a link was added to the graph.
+     */
+    void linkAdded(NetworkLink link) {
+        if (!initialized) return;
+        SimEntity src = graph.getEdgeSource(link);
+        SimEntity dst = graph.getEdgeTarget(link);
+        if (isMobile.test(src) || isMobile.test(dst)) return;
+
+        int u = indexOf(src);
+        int v = indexOf(dst);
+        double weight = graph.getEdgeWeight(link);
+        for (int i = 0; i < size; i++) {
+            double viaLink = delays[i][u] + weight;
+            if (viaLink >= delays[i][v]) continue;  // also skips unused indices and sources that cannot reach the link
+            double[] row = delays[i];
+            double[] rowFromDst = delays[v];
+            for (int j = 0; j < size; j++) {
+                double delay = viaLink + rowFromDst[j];
+                if (delay < row[j]) {
+                    row[j] = delay;
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called after a link was removed from the graph.
+     */
+    void linkRemoved(SimEntity src, SimEntity dst, double weight) {
+        if (!initialized) return;
+        if (isMobile.test(src) || isMobile.test(dst)) return;
+        Integer u = indices.get(src);
+        Integer v = indices.get(dst);
+        if (u == null || v == null) return;
+
+        for (int i = 0; i < size; i++) {
+            double viaLink = delays[i][u] + weight;
+            // The link may have been part of a shortest path from i (with some tolerance for floating point errors)
+            if (viaLink != INFINITY && viaLink <= delays[i][v] * (1 + 1e-9)) {
+                computeRow(i);
+            }
+        }
+    }
+
+    /**
+     * Must be called after entities and all their links were removed from the graph,
+     * before any other removed links are reported.
+     */
+    void verticesRemoved(Collection<SimEntity> removedEntities) {
+        if (!initialized) return;
+        int[] removedIndices = new int[removedEntities.size()];
+        int count = 0;
+        // All removed entities must be unindexed before any row is recomputed
+        for (SimEntity entity : removedEntities) {
+            Integer removedIndex = indices.remove(entity);
+            if (removedIndex == null) continue;
+            int k = removedIndex;
+            entities[k] = null;
+            Arrays.fill(delays[k], INFINITY);
+            freeIndices.push(k);
+            removedIndices[count++] = k;
+        }
+        for (int i = 0; i < size; i++) {
+            if (entities[i] == null) continue;
+            for (int j = 0; j < count; j++) {
+                if (delays[i][removedIndices[j]] != INFINITY) {
+                    computeRow(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void initialize() {
+        for (SimEntity entity : graph.vertexSet()) {
+            if (!isMobile.test(entity)) {
+                indexOf(entity);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (entities[i] != null) {
+                computeRow(i);
+            }
+        }
+        initialized = true;
+    }
+
+    private int indexOf(SimEntity entity) {
+        Integer index = indices.get(entity);
+        if (index != null) {
+            return index;
+        }
+        int i;
+        if (!freeIndices.isEmpty()) {
+            i = freeIndices.pop();
+        } else {
+            if (size == entities.length) {
+                grow();
+            }
+            i = size++;
+        }
+        indices.put(entity, i);
+        entities[i] = entity;
+        for (int j = 0; j < size; j++) {
+            delays[i][j] = INFINITY;
+            delays[j][i] = INFINITY;
+        }
+        delays[i][i] = 0;
+        return i;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, entities.length * 2);
+        entities = Arrays.copyOf(entities, capacity);
+        double[][] newDelays = new double[capacity][];
+        for (int i = 0; i < capacity; i++) {
+            newDelays[i] = new double[capacity];
+            Arrays.fill(newDelays[i], INFINITY);
+            if (i < delays.length) {
+                System.arraycopy(delays[i], 0, newDelays[i], 0, delays[i].length);
+            }
+        }
+        delays = newDelays;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm on the static entities to recompute all delays from one source.
+     */
+    private void computeRow(int source) {
+        double[] row = delays[source];
+        Arrays.fill(row, 0, size, INFINITY);
+        row[source] = 0;
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        queue.add(new QueueEntry(source, 0));
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            if (entry.delay > row[entry.index]) continue;
+            for (NetworkLink link : graph.outgoingEdgesOf(entities[entry.index])) {
+                Integer target = indices.get(graph.getEdgeTarget(link));
+                if (target == null) continue;  // mobile entity
+                double delay = entry.delay + graph.getEdgeWeight(link);
+                if (delay < row[target]) {
+                    row[target] = delay;
+                    queue.add(new QueueEntry(target, delay));
+                }
+            }
+        }
+    }
+
+    private static final class QueueEntry implements Comparable<QueueEntry> {
+        final int index;
+        final double delay;
+
+        QueueEntry(int index, double delay) {
+            this.index = index;
+            this.delay = delay;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            return Double.compare(delay, other.delay);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.leaf.infrastructure;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense int ids to elements and recycles the ids of removed elements.
+ *
+ * Released ids are reused in LIFO order, so the ids stay compact even if elements are frequently added and removed.
+ */
+class IdRegistry<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeIdCount = 0;
+    private int idLimit = 0;
+
+    int register(T element) {
+        int id;
+        if (freeIdCount > 0) {
+            id = freeIds[--freeIdCount];
+        } else {
+            if (idLimit == elements.length) {
+                elements = Arrays.copyOf(elements, idLimit * 2);
+            }
+            id = idLimit++;
+        }
+        elements[id] = element;
+        return id;
+    }
+
+    void release(int id) {
+        if (id < 0 || id >= idLimit || elements[id] == null) return;
+        elements[id] = null;
+        if (freeIdCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIdCount * 2);
+        }
+        freeIds[freeIdCount++] = id;
+    }
+
+    /**
+     * Returns the element with the given id or null if the id is not assigned.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int id) {
+        if (id < 0 || id >= idLimit) return null;
+        return (T) elements[id];
+    }
+
+    int getIdLimit() {
+        return idLimit;
+    }
+
+    int size() {
+        return idLimit - freeIdCount;
+    }
+}
@@ -4,11 +4,21 @@ import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.network.topologies.NetworkTopology;
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
-import org.jgrapht.alg.shortestpath.FloydWarshallShortestPaths;
+import org.jgrapht.alg.shortestpath.KShortestSimplePaths;
+import org.jgrapht.alg.util.Pair;
 import org.jgrapht.graph.DirectedWeightedMultigraph;
 import org.leaf.application.Application;
 import org.leaf.placement.Orchestrator;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 /**
  * Infrastructure topology connecting compute nodes with network links in a weighted graph.
  *
@@ -19,16 +29,36 @@ public class InfrastructureGraph implements NetworkTopology {
     public static InfrastructureGraph NULL = new InfrastructureGraph() {};
 
     private DirectedWeightedMultigraph<SimEntity, NetworkLink> graph;
+    private PathCache pathCache;
+    private DelayMatrix delayMatrix;
+    private CapacityAwareRouter router;
+    private CsrGraph csrGraph = null;
+    private final TopologyChanges pendingChanges = new TopologyChanges();
+    private int batchDepth = 0;
 
     public InfrastructureGraph() {
         graph = new DirectedWeightedMultigraph<>(NetworkLink.class);
+        pathCache = new PathCache(graph);
+        delayMatrix = new DelayMatrix(graph, this::isMobile);
+        router = new CapacityAwareRouter(this, CapacityAwareRouter.DEFAULT_CANDIDATE_PATHS);
+    }
+
+    /**
+     * Adds an entity to the graph.
+     */
+    public void addVertex(SimEntity entity) {
+        if (!graph.addVertex(entity)) return;
+        pendingChanges.addedVertices.add(entity);
+        applyChangesUnlessBatched();
     }
 
     public void addLink(NetworkLink networkLink) {
-        graph.addVertex(networkLink.getSrc());
-        graph.addVertex(networkLink.getDst());
+        addVertex(networkLink.getSrc());
+        addVertex(networkLink.getDst());
         graph.addEdge(networkLink.getSrc(), networkLink.getDst(), networkLink);
         graph.setEdgeWeight(networkLink, networkLink.getLatency());  // in jgrapht all access to the weight of an edge must go through the graph interface
+        pendingChanges.addedLinks.add(networkLink);
+        applyChangesUnlessBatched();
     }
 
     @Override
@@ -40,22 +70,190 @@ public class InfrastructureGraph implements NetworkTopology {
         addLink(networkLink);
     }
 
+    /**
+     * Returns the delay of the shortest path between two entities or {@link Double#POSITIVE_INFINITY} if no path exists.
+     *
+     * Delays between static entities are looked up in a precomputed matrix, delays of mobile entities are derived
+     * from the delays of the static entities they are linked to.
+     *
+     * @see #isMobile(SimEntity)
+     */
     @Override
     public double getDelay(final SimEntity src, final SimEntity dest) {
-        // TODO The Network interfaces in CloudSimPlus are not very good, the try catch should not be necessary
-        FloydWarshallShortestPaths<SimEntity, NetworkLink> algorithm = new FloydWarshallShortestPaths<>(graph);
-        try {
-            return algorithm.getPathWeight(src, dest);  // Returns Double.POSITIVE_INFINITY if no path exists
-        } catch (IllegalArgumentException e) {
-            return Double.POSITIVE_INFINITY;
+        checkNotInBatch();
+        return delayMatrix.getDelay(src, dest);
+    }
+
+    /**
+     * Removes a link between two entities and returns it or null if there is no such link.
+     */
+    public NetworkLink removeLink(SimEntity src, SimEntity dest) {
+        NetworkLink networkLink = graph.getEdge(src, dest);
+        if (networkLink == null) return null;
+        pendingChanges.removedLinks.add(new RemovedLink(networkLink, src, dest, graph.getEdgeWeight(networkLink), false));
+        graph.removeEdge(networkLink);
+        applyChangesUnlessBatched();
+        return networkLink;
+    }
+
+    /**
+     * Removes an entity and all its incoming and outgoing links from the graph.
+     */
+    public void removeVertex(SimEntity entity) {
+        if (!graph.containsVertex(entity)) return;
+        for (NetworkLink networkLink : graph.edgesOf(entity)) {
+            pendingChanges.removedLinks.add(new RemovedLink(networkLink, graph.getEdgeSource(networkLink),
+                graph.getEdgeTarget(networkLink), graph.getEdgeWeight(networkLink), true));
+        }
+        graph.removeVertex(entity);
+        pendingChanges.removedVertices.add(entity);
+        applyChangesUnlessBatched();
+    }
+
+    /**
+     * Starts a batch of topology changes.
+     *
+     * The graph itself is modified right away, but cached paths, delays and other derived structures are only updated
+     * once all changes are committed. This is much cheaper than updating them after every single change, e.g. when
+     * many taxis are added in the same time step. Paths and delays cannot be queried until the batch is committed.
+     * Batches can be nested, the changes are applied when the outermost batch is committed.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Commits the current batch of topology changes.
+     *
+     * @see #beginBatch()
+     */
+    public void commit() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("Cannot commit as no batch was started.");
         }
+        batchDepth--;
+        applyChangesUnlessBatched();
     }
 
-    public void removeLink(SimEntity src, SimEntity dest) {
-        graph.removeEdge(src, dest);
+    public boolean isInBatch() {
+        return batchDepth > 0;
     }
 
+    private void checkNotInBatch() {
+        if (batchDepth > 0) {
+            throw new IllegalStateException("Cannot query the infrastructure graph before the current batch is committed.");
+        }
+    }
+
+    /**
+     * Updates all derived structures with the pending changes: Removals first, so that links that were removed and
+     * added again within a batch are treated as new links.
+     */
+    private void applyChangesUnlessBatched() {
+        if (batchDepth > 0 || pendingChanges.isEmpty()) return;
+        delayMatrix.verticesRemoved(pendingChanges.removedVertices);
+        for (RemovedLink removedLink : pendingChanges.removedLinks) {
+            pathCache.linkRemoved(removedLink.link);
+            if (!removedLink.ofRemovedVertex) {  // the delay matrix handles removed vertices as a whole
+                delayMatrix.linkRemoved(removedLink.src, removedLink.dst, removedLink.weight);
+            }
+            if (csrGraph != null) {
+                csrGraph.linkRemoved(removedLink.link, removedLink.src);
+            }
+        }
+        for (SimEntity entity : pendingChanges.removedVertices) {
+            pathCache.vertexRemoved(entity);
+            if (csrGraph != null) {
+                csrGraph.vertexRemoved(entity);
+            }
+        }
+        if (csrGraph != null) {
+            for (SimEntity entity : pendingChanges.addedVertices) {
+                if (graph.containsVertex(entity)) {
+                    csrGraph.vertexAdded(entity);
+                }
+            }
+        }
+        List<NetworkLink> addedLinks = pendingChanges.addedLinks;
+        addedLinks.removeIf(link -> !graph.containsEdge(link));  // removed again within the batch
+        for (NetworkLink networkLink : addedLinks) {
+            delayMatrix.linkAdded(networkLink);
+            if (csrGraph != null) {
+                csrGraph.linkAdded(networkLink);
+            }
+        }
+        pathCache.linksAdded(addedLinks);
+        pendingChanges.clear();
+    }
+
+    /**
+     * Mobile entities frequently change their links and are not used to route traffic between other entities.
+     * Changes to their links are therefore cheap, as they do not affect the delays between static entities.
+     */
+    protected boolean isMobile(SimEntity entity) {
+        return false;
+    }
+
+    /**
+     * Returns the shortest path between two entities or null if no path exists.
+     *
+     * Paths are cached until a topology change affects them. The graph must therefore only be modified via
+     * {@link #addLink(NetworkLink)}, {@link #removeLink(SimEntity, SimEntity)} and {@link #removeVertex(SimEntity)}.
+     */
     public GraphPath<SimEntity, NetworkLink> getPath(final SimEntity src, final SimEntity dest) {
+        checkNotInBatch();
+        PathCache.Entry entry = pathCache.get(src, dest);
+        if (entry != null) {
+            return entry.shortestPath();
+        }
+        GraphPath<SimEntity, NetworkLink> path = computePath(src, dest);
+        if (path != null) {
+            pathCache.put(path);
+        }
+        return path;
+    }
+
+    /**
+     * Computes the shortest paths between all given pairs of entities that are not cached yet on a fork-join pool
+     * and adds them to the path cache.
+     *
+     * The topology is not modified while the paths are computed, and the paths are the same that
+     * {@link #getPath(SimEntity, SimEntity)} would compute, so subsequent calls to it return exactly the same results
+     * as without precomputation. Pairs of entities that are not part of the graph are skipped.
+     */
+    public void precomputePaths(Collection<Pair<SimEntity, SimEntity>> pairs, ForkJoinPool pool) {
+        checkNotInBatch();
+        List<Pair<SimEntity, SimEntity>> missingPairs = new ArrayList<>();
+        Set<Pair<SimEntity, SimEntity>> seenPairs = new HashSet<>();
+        for (Pair<SimEntity, SimEntity> pair : pairs) {
+            SimEntity src = pair.getFirst();
+            SimEntity dest = pair.getSecond();
+            if (graph.containsVertex(src) && graph.containsVertex(dest) && pathCache.get(src, dest) == null && seenPairs.add(pair)) {
+                missingPairs.add(pair);
+            }
+        }
+        if (missingPairs.isEmpty()) return;
+        if (csrGraph != null) {
+            csrGraph.prepare();
+        }
+        List<GraphPath<SimEntity, NetworkLink>> paths = pool.submit(() -> missingPairs.parallelStream()
+            .map(pair -> computePath(pair.getFirst(), pair.getSecond()))
+            .collect(Collectors.toList())
+        ).join();
+        for (GraphPath<SimEntity, NetworkLink> path : paths) {
+            if (path != null) {
+                pathCache.put(path);
+            }
+        }
+    }
+
+    /**
+     * Computes the shortest path without using the cache. Only reads the topology, so it can be called concurrently.
+     */
+    private GraphPath<SimEntity, NetworkLink> computePath(final SimEntity src, final SimEntity dest) {
+        if (csrGraph != null) {
+            return csrGraph.getPath(src, dest);
+        }
         DijkstraShortestPath<SimEntity, NetworkLink> algorithm = new DijkstraShortestPath<>(graph);
         try {
             return algorithm.getPath(src, dest);
@@ -64,9 +262,108 @@ public class InfrastructureGraph implements NetworkTopology {
         }
     }
 
+    /**
+     * Returns up to k loopless paths between two entities ordered by weight or an empty list if no path exists.
+     *
+     * The first path is always the one returned by {@link #getPath(SimEntity, SimEntity)}, i.e. the cached shortest
+     * path of the active backend. Alternative paths are computed on the first request and cached just like shortest
+     * paths. They are always computed by jgrapht's {@link KShortestSimplePaths} on the jgrapht graph, also if the
+     * {@link CsrGraph} backend is enabled, which recomputes the shortest path once more.
+     */
+    public List<GraphPath<SimEntity, NetworkLink>> getPaths(final SimEntity src, final SimEntity dest, int k) {
+        GraphPath<SimEntity, NetworkLink> shortestPath = getPath(src, dest);
+        if (shortestPath == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        PathCache.Entry entry = pathCache.get(src, dest);
+        if (entry.paths.size() < k && !entry.exhausted) {
+            List<GraphPath<SimEntity, NetworkLink>> paths = new KShortestSimplePaths<>(graph).getPaths(src, dest, k);
+            List<GraphPath<SimEntity, NetworkLink>> alternatives = new ArrayList<>();
+            for (GraphPath<SimEntity, NetworkLink> path : paths) {
+                if (entry.paths.size() + alternatives.size() == k) break;
+                if (!containsPath(entry.paths, path)) {  // the cached paths are computed again
+                    alternatives.add(path);
+                }
+            }
+            pathCache.addPaths(entry, alternatives, paths.size() < k);
+        }
+        return Collections.unmodifiableList(entry.paths.subList(0, Math.min(k, entry.paths.size())));
+    }
+
+    private static boolean containsPath(List<GraphPath<SimEntity, NetworkLink>> paths, GraphPath<SimEntity, NetworkLink> path) {
+        for (GraphPath<SimEntity, NetworkLink> otherPath : paths) {
+            if (otherPath.getEdgeList().equals(path.getEdgeList())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Switches the computation of shortest paths between jgrapht and a {@link CsrGraph}, which is faster and more
+     * memory efficient on large topologies. Paths of equal weight may be chosen differently by both backends.
+     *
+     * The jgrapht graph always remains the primary representation of the topology, the CSR graph mirrors its links.
+     */
+    public void setCsrBackend(boolean enabled) {
+        checkNotInBatch();
+        if (enabled && csrGraph == null) {
+            csrGraph = new CsrGraph(graph, this::isMobile);
+        } else if (!enabled) {
+            csrGraph = null;
+        }
+    }
+
+    public boolean isCsrBackend() {
+        return csrGraph != null;
+    }
+
+    public CapacityAwareRouter getRouter() {
+        return router;
+    }
+
+    public void setRouter(CapacityAwareRouter router) {
+        this.router = router;
+    }
+
     public DirectedWeightedMultigraph<SimEntity, NetworkLink> getGraph() {
         return graph;
     }
 
-}
+    /**
+     * Topology changes that were applied to the graph but not yet to the derived structures
+     */
+    private static final class TopologyChanges {
+        final List<SimEntity> addedVertices = new ArrayList<>();
+        final List<NetworkLink> addedLinks = new ArrayList<>();
+        final List<RemovedLink> removedLinks = new ArrayList<>();
+        final List<SimEntity> removedVertices = new ArrayList<>();
+
+        boolean isEmpty() {
+            return addedVertices.isEmpty() && addedLinks.isEmpty() && removedLinks.isEmpty() && removedVertices.isEmpty();
+        }
 
+        void clear() {
+            addedVertices.clear();
+            addedLinks.clear();
+            removedLinks.clear();
+            removedVertices.clear();
+        }
+    }
+
+    private static final class RemovedLink {
+        final NetworkLink link;
+        final SimEntity src;
+        final SimEntity dst;
+        final double weight;
+        final boolean ofRemovedVertex;
+
+        RemovedLink(NetworkLink link, SimEntity src, SimEntity dst, double weight, boolean ofRemovedVertex) {
+            this.link = link;
+            this.src = src;
+            this.dst = dst;
+            this.weight = weight;
+            this.ofRemovedVertex = ofRemovedVertex;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.power.PowerAware;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.leaf.power.PowerModelNetworkLink;
+import org.leaf.power.PowerNotifier;
+import org.leaf.power.PowerObservable;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -11,11 +15,14 @@ import static java.util.Objects.requireNonNull;
 /**
  * Link between two compute nodes in the infrastructure graph
  */
-public class NetworkLink extends DefaultWeightedEdge implements PowerAware<PowerModelNetworkLink> {
+public class NetworkLink extends DefaultWeightedEdge implements PowerAware<PowerModelNetworkLink>, PowerObservable {
 
     private double latency = 0;
-    private double bandwidth = 0;
-    private double usedBandwidth = 0;
+    private volatile double bandwidth = 0;
+    private final AtomicCapacity usedBandwidth = new AtomicCapacity();
+    /** Incremented after every change of the bandwidth, the used bandwidth or the endpoints */
+    private final AtomicLong version = new AtomicLong();
+    private final PowerNotifier powerNotifier = new PowerNotifier(() -> getPowerModel().getPowerMeasurement());
     private PowerModelNetworkLink powerModel = PowerModelNetworkLink.NULL;
 
     private SimEntity src;
@@ -49,29 +56,58 @@ public class NetworkLink extends DefaultWeightedEdge implements PowerAware<Power
 
     public NetworkLink setBandwidth(double bandwidth) {
         this.bandwidth = bandwidth;
+        changed();
         return this;
     }
 
+    /**
+     * Checks whether the given bandwidth can be reserved without reserving it.
+     */
+    public boolean canReserveBandwidth(double reserveBw) {
+        return usedBandwidth.canReserve(reserveBw, bandwidth);
+    }
+
+    /**
+     * Reserves the given bandwidth if it is available. Safe to be called concurrently.
+     */
     public boolean reserveBandwidth(double reserveBw) {
-        double newUsedBandwidth = usedBandwidth + reserveBw;
-        if (newUsedBandwidth > bandwidth) {
+        if (!usedBandwidth.tryReserve(reserveBw, bandwidth)) {
             return false;
-        } else {
-            usedBandwidth = newUsedBandwidth;
-            return true;
         }
+        changed();
+        return true;
     }
 
+    /**
+     * Releases the given bandwidth. Safe to be called concurrently.
+     */
     public void releaseBandwidth(double releaseBw) {
-        double newUsedBandwidth = usedBandwidth - releaseBw;
-        if (newUsedBandwidth < 0) {
-            throw new RuntimeException(format("Cannot release %f bandwidth because only %f is reserved.", releaseBw, usedBandwidth));
+        if (!usedBandwidth.tryRelease(releaseBw)) {
+            throw new RuntimeException(format("Cannot release %f bandwidth because only %f is reserved.", releaseBw, getUsedBandwidth()));
         }
-        usedBandwidth = newUsedBandwidth;
+        changed();
     }
 
     public double getUsedBandwidth() {
-        return usedBandwidth;
+        return usedBandwidth.getReserved();
+    }
+
+    /**
+     * Returns a counter that changes whenever the bandwidth, the used bandwidth or the endpoints of the link change.
+     * Allows power models to cache their measurements.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public PowerNotifier getPowerNotifier() {
+        return powerNotifier;
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        powerNotifier.powerChanged();
     }
 
     public void setPowerModel(PowerModelNetworkLink powerModel) {
@@ -83,11 +119,12 @@ public class NetworkLink extends DefaultWeightedEdge implements PowerAware<Power
 
         this.powerModel = powerModel;
         powerModel.setLink(this);
+        powerNotifier.powerChanged();
     }
 
     @Override
     public String toString() {
-        return getClass().getSimpleName() + String.format("{bandwidth=%6.2e/%6.2e}" , usedBandwidth, bandwidth);
+        return getClass().getSimpleName() + String.format("{bandwidth=%6.2e/%6.2e}" , getUsedBandwidth(), bandwidth);
     }
 
     public PowerModelNetworkLink getPowerModel() {
@@ -100,6 +137,7 @@ public class NetworkLink extends DefaultWeightedEdge implements PowerAware<Power
 
     public void setSrc(SimEntity src) {
         this.src = src;
+        changed();
     }
 
     public SimEntity getDst() {
@@ -108,5 +146,6 @@ public class NetworkLink extends DefaultWeightedEdge implements PowerAware<Power
 
     public void setDst(SimEntity dst) {
         this.dst = dst;
+        changed();
     }
 }
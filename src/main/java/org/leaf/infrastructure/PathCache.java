@@ -0,0 +1,165 @@
+package org.leaf.infrastructure;
+
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphPath;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache for the shortest paths between compute nodes in the infrastructure graph.
+ *
+ * Every entry holds the shortest path between two entities and, once requested, the next shortest alternative paths.
+ * Entries are only invalidated if they are affected by a topology change:
+ * - Removing a link drops all entries with a cached path that traverses this link.
+ * - Adding a link drops all entries whose source can reach the new link, as their paths may have become shorter.
+ */
+class PathCache {
+
+    private final Graph<SimEntity, NetworkLink> graph;
+
+    /** Cached entries by source and destination */
+    private final Map<SimEntity, Map<SimEntity, Entry>> entries = new HashMap<>();
+    /** Reverse index of all entries with a cached path that traverses a link */
+    private final Map<NetworkLink, Set<Entry>> entriesByLink = new HashMap<>();
+
+    PathCache(Graph<SimEntity, NetworkLink> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the cached entry between two entities or null if there is none.
+     */
+    Entry get(SimEntity src, SimEntity dst) {
+        Map<SimEntity, Entry> entriesFromSrc = entries.get(src);
+        if (entriesFromSrc == null) {
+            return null;
+        }
+        return entriesFromSrc.get(dst);
+    }
+
+    /**
+     * Creates a new entry with the given shortest path, replacing any existing entry for the same entities.
+     */
+    Entry put(GraphPath<SimEntity, NetworkLink> shortestPath) {
+        Entry existing = get(shortestPath.getStartVertex(), shortestPath.getEndVertex());
+        if (existing != null) {
+            remove(existing);
+        }
+        Entry entry = new Entry(shortestPath.getStartVertex(), shortestPath.getEndVertex());
+        entries.computeIfAbsent(entry.src, k -> new HashMap<>()).put(entry.dst, entry);
+        addPaths(entry, Collections.singletonList(shortestPath), false);
+        return entry;
+    }
+
+    /**
+     * Appends alternative paths to an entry.
+     *
+     * @param exhausted true if there are no further paths between the entities of the entry
+     */
+    void addPaths(Entry entry, List<GraphPath<SimEntity, NetworkLink>> paths, boolean exhausted) {
+        for (GraphPath<SimEntity, NetworkLink> path : paths) {
+            entry.paths.add(path);
+            for (NetworkLink link : path.getEdgeList()) {
+                entriesByLink.computeIfAbsent(link, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+            }
+        }
+        entry.exhausted = exhausted;
+    }
+
+    /**
+     * Must be called after links were added to the graph.
+     */
+    void linksAdded(Collection<NetworkLink> links) {
+        if (entries.isEmpty()) return;
+        // Walk the graph backwards from the new links to find all sources that may now have a shorter path
+        Set<SimEntity> visited = new HashSet<>();
+        Deque<SimEntity> queue = new ArrayDeque<>();
+        for (NetworkLink link : links) {
+            queue.add(graph.getEdgeSource(link));
+        }
+        while (!queue.isEmpty()) {
+            SimEntity entity = queue.poll();
+            if (!visited.add(entity)) continue;
+            invalidateSource(entity);
+            for (NetworkLink incomingLink : graph.incomingEdgesOf(entity)) {
+                queue.add(graph.getEdgeSource(incomingLink));
+            }
+        }
+    }
+
+    /**
+     * Must be called before or after a link was removed from the graph.
+     */
+    void linkRemoved(NetworkLink link) {
+        Set<Entry> affectedEntries = entriesByLink.remove(link);
+        if (affectedEntries == null) return;
+        for (Entry entry : affectedEntries) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Must be called after a vertex was removed from the graph and all its links were reported via {@link #linkRemoved}.
+     */
+    void vertexRemoved(SimEntity entity) {
+        invalidateSource(entity);  // drops the path from the entity to itself
+    }
+
+    private void invalidateSource(SimEntity src) {
+        Map<SimEntity, Entry> entriesFromSrc = entries.get(src);
+        if (entriesFromSrc == null) return;
+        for (Entry entry : new ArrayList<>(entriesFromSrc.values())) {
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        Map<SimEntity, Entry> entriesFromSrc = entries.get(entry.src);
+        if (entriesFromSrc != null && entriesFromSrc.get(entry.dst) == entry) {
+            entriesFromSrc.remove(entry.dst);
+            if (entriesFromSrc.isEmpty()) {
+                entries.remove(entry.src);
+            }
+        }
+        for (GraphPath<SimEntity, NetworkLink> path : entry.paths) {
+            for (NetworkLink link : path.getEdgeList()) {
+                Set<Entry> entriesOfLink = entriesByLink.get(link);
+                if (entriesOfLink == null) continue;
+                entriesOfLink.remove(entry);
+                if (entriesOfLink.isEmpty()) {
+                    entriesByLink.remove(link);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached paths between two entities, ordered by weight. The first path is always the shortest path.
+     */
+    static final class Entry {
+        final SimEntity src;
+        final SimEntity dst;
+        final List<GraphPath<SimEntity, NetworkLink>> paths = new ArrayList<>(1);
+        boolean exhausted = false;
+
+        private Entry(SimEntity src, SimEntity dst) {
+            this.src = src;
+            this.dst = dst;
+        }
+
+        GraphPath<SimEntity, NetworkLink> shortestPath() {
+            return paths.get(0);
+        }
+    }
+}
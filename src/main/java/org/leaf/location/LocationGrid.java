@@ -0,0 +1,125 @@
+package org.leaf.location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Spatial index that partitions the 2D-coordinate space into a uniform grid of square cells.
+ *
+ * Range queries only have to check the elements in the cells overlapping the range, so the cost of a query
+ * does not depend on the total number of elements. Best suited for static elements and a cell size in the
+ * order of magnitude of the queried range.
+ */
+public class LocationGrid<T extends LocationAware> {
+
+    private final double cellSize;
+    private int size = 0;
+
+    // Cells are stored in a dense row-major array that grows to cover the bounding box of all elements
+    private List<List<T>> cells = new ArrayList<>();
+    private int minCellX = 0;
+    private int minCellY = 0;
+    private int cellsX = 0;
+    private int cellsY = 0;
+
+    public LocationGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cell size must be greater than 0 but is " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    public void add(T element) {
+        Location location = element.getLocation();
+        int x = cellIndex(location.getX());
+        int y = cellIndex(location.getY());
+        ensureCovered(x, y);
+        cells.get(position(x, y)).add(element);
+        size++;
+    }
+
+    public boolean remove(T element) {
+        Location location = element.getLocation();
+        int x = cellIndex(location.getX());
+        int y = cellIndex(location.getY());
+        if (!isCovered(x, y) || !cells.get(position(x, y)).remove(element)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Calls the consumer for every element whose euclidean distance to the location is at most the given range.
+     */
+    public void forEachInRange(Location location, double range, Consumer<T> consumer) {
+        int minX = Math.max(cellIndex(location.getX() - range), minCellX);
+        int maxX = Math.min(cellIndex(location.getX() + range), minCellX + cellsX - 1);
+        int minY = Math.max(cellIndex(location.getY() - range), minCellY);
+        int maxY = Math.min(cellIndex(location.getY() + range), minCellY + cellsY - 1);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                List<T> cell = cells.get(position(x, y));
+                for (int i = 0; i < cell.size(); i++) {
+                    T element = cell.get(i);
+                    if (element.getLocation().distance(location) <= range) {
+                        consumer.accept(element);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all elements whose euclidean distance to the location is at most the given range.
+     */
+    public List<T> getInRange(Location location, double range) {
+        List<T> result = new ArrayList<>();
+        forEachInRange(location, range, result::add);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int cellIndex(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int position(int x, int y) {
+        return (x - minCellX) * cellsY + (y - minCellY);
+    }
+
+    private boolean isCovered(int x, int y) {
+        return x >= minCellX && x < minCellX + cellsX && y >= minCellY && y < minCellY + cellsY;
+    }
+
+    /**
+     * Grows the cell array so that it covers the given cell.
+     */
+    private void ensureCovered(int x, int y) {
+        if (isCovered(x, y)) return;
+        int newMinCellX = cellsX == 0 ? x : Math.min(minCellX, x);
+        int newMinCellY = cellsY == 0 ? y : Math.min(minCellY, y);
+        int newCellsX = (cellsX == 0 ? x : Math.max(minCellX + cellsX - 1, x)) - newMinCellX + 1;
+        int newCellsY = (cellsY == 0 ? y : Math.max(minCellY + cellsY - 1, y)) - newMinCellY + 1;
+
+        List<List<T>> newCells = new ArrayList<>(newCellsX * newCellsY);
+        for (int i = 0; i < newCellsX * newCellsY; i++) {
+            newCells.add(new ArrayList<>());
+        }
+        for (int i = 0; i < cellsX; i++) {
+            for (int j = 0; j < cellsY; j++) {
+                int newPosition = (minCellX + i - newMinCellX) * newCellsY + (minCellY + j - newMinCellY);
+                newCells.set(newPosition, cells.get(i * cellsY + j));
+            }
+        }
+        cells = newCells;
+        minCellX = newMinCellX;
+        minCellY = newMinCellY;
+        cellsX = newCellsX;
+        cellsY = newCellsY;
+    }
+}
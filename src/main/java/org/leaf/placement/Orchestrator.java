@@ -1,7 +1,13 @@
 package org.leaf.placement;
 
 import org.leaf.application.Application;
+import org.leaf.application.Task;
+import org.leaf.infrastructure.ComputeNode;
 import org.leaf.infrastructure.InfrastructureGraph;
+import org.leaf.util.Registry;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * DatacenterBroker for the LEAF infrastructure and application model.
@@ -14,6 +20,8 @@ public abstract class Orchestrator {
     };
 
     InfrastructureGraph infrastructureGraph;
+    private boolean batchAdmission = false;
+    private final Registry<Application> submittedApplications = new Registry<>();
 
     public Orchestrator(InfrastructureGraph infrastructureGraph) {
         this.infrastructureGraph = infrastructureGraph;
@@ -21,6 +29,70 @@ public abstract class Orchestrator {
 
     public abstract void placeApplication(Application application);
 
+    /**
+     * If enabled, applications that start at the same simulation time are admitted together,
+     * see {@link Application#admit(List, ForkJoinPool)}.
+     */
+    public void setBatchAdmission(boolean batchAdmission) {
+        this.batchAdmission = batchAdmission;
+    }
+
+    public boolean isBatchAdmission() {
+        return batchAdmission;
+    }
+
+    /**
+     * Queues a started application for batch admission.
+     *
+     * @return true if the application is the first of a new batch, which has to trigger its admission
+     */
+    public boolean submit(Application application) {
+        submittedApplications.add(application);
+        return submittedApplications.size() == 1;
+    }
+
+    /**
+     * Removes an application that shuts down before it was admitted.
+     *
+     * @return the application that has to trigger the admission of the batch instead, if the removed application was
+     * the first of the batch and others are still queued, otherwise null
+     */
+    public Application withdraw(Application application) {
+        boolean first = submittedApplications.first() == application;
+        if (!submittedApplications.remove(application)) return null;
+        return first ? submittedApplications.first() : null;
+    }
+
+    /**
+     * Admits all queued applications in the order they were submitted.
+     */
+    public void admitSubmitted() {
+        if (submittedApplications.isEmpty()) return;
+        List<Application> applications = submittedApplications.snapshot();
+        submittedApplications.clear();
+        Application.admit(applications, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the candidate with the highest score according to the strategy that has enough MIPS left for the task,
+     * or null if no candidate fits or all of them were rejected by the strategy.
+     */
+    protected ComputeNode selectComputeNode(Application application, Task task, List<? extends ComputeNode> candidates, PlacementStrategy strategy) {
+        PlacementCandidate candidate = new PlacementCandidate(infrastructureGraph);
+        ComputeNode best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < candidates.size(); i++) {
+            candidate.reset(application, task, candidates.get(i));
+            if (!candidate.fits()) continue;
+            double score = strategy.score(candidate);
+            if (score > bestScore) {
+                best = candidate.getComputeNode();
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
     public InfrastructureGraph getInfrastructureGraph() {
         return infrastructureGraph;
     }
@@ -0,0 +1,147 @@
+package org.leaf.placement;
+
+import org.cloudbus.cloudsim.power.models.PowerModelHost;
+import org.leaf.application.Application;
+import org.leaf.application.DataFlow;
+import org.leaf.application.Task;
+import org.leaf.host.HostLeaf;
+import org.leaf.infrastructure.ComputeNode;
+import org.leaf.infrastructure.InfrastructureGraph;
+
+/**
+ * A compute node a task could be placed on, together with the inputs placement strategies score it by.
+ *
+ * All inputs are derived from values the hosts and the infrastructure graph already keep up to date: the reserved
+ * MIPS of the host tasks run on, the delay matrix of the graph and the power model of the host. Delay and marginal
+ * power are only computed when a strategy asks for them. Instances are reused for all candidates of a placement.
+ *
+ * A candidate can also describe the compute node a running task is already placed on. In this case, the MIPS of the
+ * task are considered free, so the current node is scored as if the task was about to be placed on it.
+ */
+public class PlacementCandidate {
+
+    private final InfrastructureGraph infrastructureGraph;
+    private Application application;
+    private Task task;
+    private ComputeNode computeNode;
+    private HostLeaf host;
+    private boolean placed;
+    private double delay;
+    private double marginalPower;
+
+    PlacementCandidate(InfrastructureGraph infrastructureGraph) {
+        this.infrastructureGraph = infrastructureGraph;
+    }
+
+    void reset(Application application, Task task, ComputeNode computeNode) {
+        reset(application, task, computeNode, false);
+    }
+
+    /**
+     * Describes the compute node the task is currently placed on and has reserved its MIPS on.
+     */
+    void resetToCurrent(Application application, Task task) {
+        reset(application, task, task.getComputeNode(), true);
+    }
+
+    private void reset(Application application, Task task, ComputeNode computeNode, boolean placed) {
+        this.application = application;
+        this.task = task;
+        this.computeNode = computeNode;
+        this.host = computeNode.getHostList().isEmpty() ? null : (HostLeaf) computeNode.getHostList().get(0);
+        this.delay = Double.NaN;
+        this.marginalPower = Double.NaN;
+        this.placed = placed && host != null;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public ComputeNode getComputeNode() {
+        return computeNode;
+    }
+
+    /**
+     * Returns true if the task is already placed on the compute node.
+     */
+    public boolean isCurrent() {
+        return placed;
+    }
+
+    /**
+     * Returns true if the host of the compute node has enough MIPS left for the task.
+     */
+    public boolean fits() {
+        return placed || (host != null && host.canReserveMips(task.getRequestedMips()));
+    }
+
+    public double getTotalMips() {
+        return host.getTotalMipsCapacity();
+    }
+
+    /**
+     * Returns the MIPS that are not reserved yet.
+     */
+    public double getResidualMips() {
+        return host.getTotalMipsCapacity() - getUsedMips();
+    }
+
+    /**
+     * Returns the current utilization between 0 and 1, not including the task.
+     */
+    public double getUtilization() {
+        return getUsedMips() / host.getTotalMipsCapacity();
+    }
+
+    /**
+     * Returns the sum of the delays from all placed tasks that send data to the task to the compute node
+     * and from the compute node to all placed tasks that receive data from the task.
+     */
+    public double getDelay() {
+        if (Double.isNaN(delay)) {
+            double sum = 0;
+            for (DataFlow dataFlow : application.getGraph().incomingEdgesOf(task)) {
+                ComputeNode src = dataFlow.getSourceTask().getComputeNode();
+                if (src != ComputeNode.NULL) {
+                    sum += infrastructureGraph.getDelay(src, computeNode);
+                }
+            }
+            for (DataFlow dataFlow : application.getGraph().outgoingEdgesOf(task)) {
+                ComputeNode dst = dataFlow.getTargetTask().getComputeNode();
+                if (dst != ComputeNode.NULL) {
+                    sum += infrastructureGraph.getDelay(computeNode, dst);
+                }
+            }
+            delay = sum;
+        }
+        return delay;
+    }
+
+    /**
+     * Returns by how many Watts the power of the host increases if the task is placed on it,
+     * including its static power if the host is currently inactive. Only valid for candidates that {@link #fits() fit}.
+     * For the current compute node, this is the power that is saved if the task leaves it.
+     */
+    public double getMarginalPower() {
+        if (Double.isNaN(marginalPower)) {
+            PowerModelHost powerModel = host.getPowerModel();
+            double capacity = host.getTotalMipsCapacity();
+            double used = getUsedMips();
+            double powerAfter = powerModel.getPower((used + task.getRequestedMips()) / capacity);
+            // Once the task leaves an idle host that shuts down when idle, its static power is saved as well
+            boolean activeWithoutTask = placed ? used > 0 || host.getIdleShutdownDeadline() < 0 : host.isActive();
+            double powerBefore = activeWithoutTask ? powerModel.getPower(used / capacity) : 0;
+            marginalPower = powerAfter - powerBefore;
+        }
+        return marginalPower;
+    }
+
+    /**
+     * Returns the MIPS reserved on the host, not including the task.
+     */
+    private double getUsedMips() {
+        double used = host.getCpuMipsUtilization();
+        return placed ? Math.max(0, used - task.getRequestedMips()) : used;
+    }
+}
@@ -0,0 +1,206 @@
+package org.leaf.placement;
+
+import org.cloudbus.cloudsim.core.CloudSimEntity;
+import org.cloudbus.cloudsim.core.Simulation;
+import org.cloudbus.cloudsim.core.events.SimEvent;
+import org.leaf.application.Application;
+import org.leaf.application.Task;
+import org.leaf.infrastructure.ComputeNode;
+import org.leaf.infrastructure.InfrastructureGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.leaf.LeafTags.OPTIMIZE_PLACEMENT;
+
+/**
+ * Periodically re-optimizes the placement of the unbound tasks of all running applications.
+ *
+ * Orchestrators place tasks greedily and never revisit them, so a task stays on a compute node even after capacity
+ * on a better one frees up. On every invocation, the optimizer performs one pass of local search: each task is scored
+ * on its current compute node, as if it was about to be placed there, and on all candidates that fit it. The task is
+ * migrated to the best candidate if its score exceeds the current one by more than the migration cost, which is
+ * given in the units of the strategy's score. Migrations are applied immediately via
+ * {@link Application#migrateTask(Task, ComputeNode)}, so later tasks of the pass see the resources they freed.
+ * Tasks on compute nodes that are no candidates, e.g. in the cloud as fallback, are migrated to any candidate that
+ * fits them.
+ *
+ * A pass stops once it has scored the maximum number of placements. The next pass continues with the application
+ * after the last one that was evaluated, so all applications are considered eventually. As the budget does not depend
+ * on the real time, repeated runs migrate the same tasks.
+ */
+public class PlacementOptimizer extends CloudSimEntity {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacementOptimizer.class.getSimpleName());
+
+    private final PlacementCandidate candidate;
+    private final List<? extends ComputeNode> candidates;
+    private final PlacementStrategy strategy;
+    private final List<List<? extends Application>> applicationLists = new ArrayList<>();
+    private double optimizationInterval = 60;
+    private double migrationCost = 0;
+    private int maxEvaluations = Integer.MAX_VALUE;
+    /** Position of the next application to evaluate across all application lists */
+    private int nextApplication = 0;
+    private long migrations = 0;
+    /** Number of placements scored in the current pass */
+    private int scoredPlacements = 0;
+
+    /**
+     * @param candidates compute nodes tasks may be migrated to, e.g. all fog nodes
+     * @param strategy strategy that scores the current and the candidate compute nodes of a task
+     */
+    public PlacementOptimizer(Simulation simulation, InfrastructureGraph infrastructureGraph, List<? extends ComputeNode> candidates, PlacementStrategy strategy) {
+        super(simulation);
+        this.candidate = new PlacementCandidate(infrastructureGraph);
+        this.candidates = candidates;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Adds a list of applications whose tasks are re-optimized. The list is read on every pass, so it may change
+     * while the simulation runs. Applications that are not running are skipped.
+     */
+    public PlacementOptimizer addApplications(List<? extends Application> applications) {
+        applicationLists.add(applications);
+        return this;
+    }
+
+    @Override
+    protected void startInternal() {
+        schedule(optimizationInterval, OPTIMIZE_PLACEMENT);
+    }
+
+    @Override
+    public void processEvent(SimEvent evt) {
+        if (evt.getTag() == OPTIMIZE_PLACEMENT) {
+            optimize();
+            schedule(optimizationInterval, OPTIMIZE_PLACEMENT);
+        }
+    }
+
+    /**
+     * Performs one pass of local search over all running applications.
+     *
+     * @return the number of tasks that were migrated
+     */
+    public int optimize() {
+        int total = 0;
+        for (List<? extends Application> applications : applicationLists) {
+            total += applications.size();
+        }
+        if (total == 0) return 0;
+
+        int start = nextApplication % total;
+        int evaluated = 0;
+        int migrated = 0;
+        scoredPlacements = 0;
+        while (evaluated < total) {
+            Application application = getApplication((start + evaluated) % total);
+            evaluated++;
+            if (application.isRunning()) {
+                migrated += optimize(application);
+            }
+            if (scoredPlacements >= maxEvaluations) break;
+        }
+        nextApplication = (start + evaluated) % total;
+        migrations += migrated;
+        LOGGER.debug("{}: {}: Evaluated {} of {} applications and migrated {} tasks.", getSimulation().clockStr(), getClass().getSimpleName(), evaluated, total, migrated);
+        return migrated;
+    }
+
+    private int optimize(Application application) {
+        int migrated = 0;
+        for (Task task : application.getTasks()) {
+            if (task.isBound()) continue;
+            ComputeNode current = task.getComputeNode();
+            // The current compute node is found during the same scan, so it is compared against the best other one afterwards
+            double currentScore = Double.NEGATIVE_INFINITY;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            ComputeNode best = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (candidates.get(i) == current) {
+                    candidate.resetToCurrent(application, task);
+                    double score = strategy.score(candidate);
+                    scoredPlacements++;
+                    if (!Double.isNaN(score)) {
+                        currentScore = score;
+                    }
+                    continue;
+                }
+                candidate.reset(application, task, candidates.get(i));
+                if (!candidate.fits()) continue;
+                double score = strategy.score(candidate);
+                scoredPlacements++;
+                if (score > bestScore) {
+                    best = candidate.getComputeNode();
+                    bestScore = score;
+                }
+            }
+            if (best != null && bestScore > currentScore + migrationCost && application.migrateTask(task, best)) {
+                LOGGER.debug("{}: {}: Migrated {} from {} to {}.", getSimulation().clockStr(), getClass().getSimpleName(), task, current, best);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private Application getApplication(int position) {
+        for (List<? extends Application> applications : applicationLists) {
+            if (position < applications.size()) {
+                return applications.get(position);
+            }
+            position -= applications.size();
+        }
+        throw new IndexOutOfBoundsException("No application at position " + position + ".");
+    }
+
+    public double getOptimizationInterval() {
+        return optimizationInterval;
+    }
+
+    public PlacementOptimizer setOptimizationInterval(double optimizationInterval) {
+        if (optimizationInterval <= 0) {
+            throw new IllegalArgumentException("The optimization interval must be greater than 0, but was " + optimizationInterval + ".");
+        }
+        this.optimizationInterval = optimizationInterval;
+        return this;
+    }
+
+    public double getMigrationCost() {
+        return migrationCost;
+    }
+
+    /**
+     * Sets by how much a candidate has to score higher than the current compute node of a task for the task to be
+     * migrated. Must not be negative, otherwise tasks could be migrated back and forth.
+     */
+    public PlacementOptimizer setMigrationCost(double migrationCost) {
+        if (migrationCost < 0) {
+            throw new IllegalArgumentException("The migration cost must not be negative, but was " + migrationCost + ".");
+        }
+        this.migrationCost = migrationCost;
+        return this;
+    }
+
+    public int getMaxEvaluations() {
+        return maxEvaluations;
+    }
+
+    /**
+     * Sets the number of placements a pass may score before it stops evaluating further applications.
+     * The application that is being evaluated when the budget is used up is still completed. Values <=0 disable the limit.
+     */
+    public PlacementOptimizer setMaxEvaluations(int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations > 0 ? maxEvaluations : Integer.MAX_VALUE;
+        return this;
+    }
+
+    /**
+     * Returns the number of tasks migrated since the simulation started.
+     */
+    public long getMigrations() {
+        return migrations;
+    }
+}
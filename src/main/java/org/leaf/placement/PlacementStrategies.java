@@ -0,0 +1,44 @@
+package org.leaf.placement;
+
+import java.util.Locale;
+
+/**
+ * Built-in placement strategies, which can be selected by name at runtime.
+ */
+public final class PlacementStrategies {
+
+    /**
+     * Prefers the least utilized compute node, which distributes the load evenly.
+     */
+    public static final PlacementStrategy SPREAD = candidate -> -candidate.getUtilization();
+
+    /**
+     * Prefers the most utilized compute node that still fits the task, so idle nodes can be shut down.
+     */
+    public static final PlacementStrategy CONSOLIDATE = PlacementCandidate::getUtilization;
+
+    /**
+     * Prefers the compute node with the lowest delay to the tasks the task exchanges data with.
+     */
+    public static final PlacementStrategy LATENCY = candidate -> -candidate.getDelay();
+
+    /**
+     * Prefers the compute node whose power increases the least.
+     */
+    public static final PlacementStrategy POWER = candidate -> -candidate.getMarginalPower();
+
+    private PlacementStrategies() {}
+
+    /**
+     * Returns the built-in strategy with the given name: spread, consolidate, latency or power.
+     */
+    public static PlacementStrategy forName(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "spread": return SPREAD;
+            case "consolidate": return CONSOLIDATE;
+            case "latency": return LATENCY;
+            case "power": return POWER;
+            default: throw new IllegalArgumentException("Unknown placement strategy " + name + ". Choose spread, consolidate, latency or power.");
+        }
+    }
+}
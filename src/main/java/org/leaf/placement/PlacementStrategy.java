@@ -0,0 +1,23 @@
+package org.leaf.placement;
+
+/**
+ * Strategy that decides on which compute node an unbound task is placed.
+ *
+ * The orchestrator scores every candidate that has enough MIPS left for the task and places the task on the one with
+ * the highest score; ties go to the earlier candidate. Candidates with a score of
+ * {@link Double#NEGATIVE_INFINITY} or NaN are never selected.
+ *
+ * @see PlacementStrategies
+ */
+public interface PlacementStrategy {
+
+    double score(PlacementCandidate candidate);
+
+    /**
+     * Returns a strategy that rejects all candidates whose utilization is not below the given threshold
+     * and scores all others like this strategy.
+     */
+    default PlacementStrategy belowUtilization(double threshold) {
+        return candidate -> candidate.getUtilization() < threshold ? score(candidate) : Double.NEGATIVE_INFINITY;
+    }
+}
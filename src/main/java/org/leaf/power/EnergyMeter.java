@@ -0,0 +1,218 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.core.Simulation;
+import org.cloudbus.cloudsim.hosts.Host;
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+import org.leaf.infrastructure.ComputeNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Event-driven alternative to a sampling power meter.
+ *
+ * The meter listens to the power changes of its entities, so their total power is a piecewise-constant function of
+ * the simulation time. Only the points in time at which the total power changes are recorded, together with the
+ * energy consumed up to then, and average powers over arbitrary intervals are derived on demand. No simulation events
+ * are scheduled.
+ *
+ * Energy is only exact for power changes that entities report via {@link PowerNotifier}, i.e. reservations and
+ * releases of bandwidth and MIPS and hosts being switched on or off. Power that changes without a notification is
+ * integrated at its value from the last notification: e.g. the power of a WiFi link whose model depends on the
+ * distance between its endpoints does not follow a moving taxi until its bandwidth changes. Such entities have to be
+ * measured by a sampling power meter like {@link PowerMeterLeaf}.
+ */
+public class EnergyMeter implements PowerChangeListener {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Simulation simulation;
+    private String name = "";
+
+    /** Current total power of all entities */
+    private double staticPower = 0;
+    private double dynamicPower = 0;
+
+    /** Points in time at which the total power changed, the energy consumed until then and the power afterwards */
+    private double[] times = new double[INITIAL_CAPACITY];
+    private double[] staticEnergies = new double[INITIAL_CAPACITY];
+    private double[] dynamicEnergies = new double[INITIAL_CAPACITY];
+    private double[] staticPowers = new double[INITIAL_CAPACITY];
+    private double[] dynamicPowers = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public EnergyMeter(Simulation simulation) {
+        this.simulation = simulation;
+    }
+
+    /**
+     * Starts metering the power of an entity.
+     */
+    public EnergyMeter add(PowerObservable entity) {
+        PowerNotifier notifier = entity.getPowerNotifier();
+        notifier.addListener(this);
+        PowerMeasurement power = notifier.getPower();
+        change(power.getStaticPower(), power.getDynamicPower());
+        return this;
+    }
+
+    /**
+     * Starts metering the power of all hosts of a compute node.
+     */
+    public EnergyMeter add(ComputeNode computeNode) {
+        for (Host host : computeNode.getHostList()) {
+            add((PowerObservable) host);
+        }
+        return this;
+    }
+
+    /**
+     * Stops metering the power of an entity, does nothing if it is not metered. Its energy consumed so far is kept.
+     */
+    public EnergyMeter remove(PowerObservable entity) {
+        PowerNotifier notifier = entity.getPowerNotifier();
+        PowerMeasurement power = notifier.getPower();
+        if (notifier.removeListener(this)) {
+            change(-power.getStaticPower(), -power.getDynamicPower());
+        }
+        return this;
+    }
+
+    @Override
+    public void powerChanged(PowerMeasurement oldPower, PowerMeasurement newPower) {
+        change(newPower.getStaticPower() - oldPower.getStaticPower(), newPower.getDynamicPower() - oldPower.getDynamicPower());
+    }
+
+    /**
+     * Adds the given deltas to the current total power.
+     */
+    synchronized void change(double staticDelta, double dynamicDelta) {
+        if (staticDelta == 0 && dynamicDelta == 0) return;
+        staticPower += staticDelta;
+        dynamicPower += dynamicDelta;
+        double time = simulation.clock();
+        if (size > 0 && times[size - 1] == time) {
+            // Several changes at the same time only result in a single change point
+            staticPowers[size - 1] = staticPower;
+            dynamicPowers[size - 1] = dynamicPower;
+            return;
+        }
+        if (size == times.length) {
+            grow();
+        }
+        if (size == 0) {
+            staticEnergies[0] = 0;
+            dynamicEnergies[0] = 0;
+        } else {
+            double duration = time - times[size - 1];
+            staticEnergies[size] = staticEnergies[size - 1] + staticPowers[size - 1] * duration;
+            dynamicEnergies[size] = dynamicEnergies[size - 1] + dynamicPowers[size - 1] * duration;
+        }
+        times[size] = time;
+        staticPowers[size] = staticPower;
+        dynamicPowers[size] = dynamicPower;
+        size++;
+    }
+
+    /**
+     * Returns the current total power of all entities.
+     */
+    public synchronized PowerMeasurement getPower() {
+        return new PowerMeasurement(staticPower, dynamicPower);
+    }
+
+    /**
+     * Returns the static energy in Joule that was consumed until the given time.
+     */
+    public synchronized double getStaticEnergy(double time) {
+        int i = indexAt(time);
+        return i < 0 ? 0 : staticEnergies[i] + staticPowers[i] * (time - times[i]);
+    }
+
+    /**
+     * Returns the dynamic energy in Joule that was consumed until the given time.
+     */
+    public synchronized double getDynamicEnergy(double time) {
+        int i = indexAt(time);
+        return i < 0 ? 0 : dynamicEnergies[i] + dynamicPowers[i] * (time - times[i]);
+    }
+
+    /**
+     * Returns the total energy in Joule that was consumed until the given time.
+     */
+    public synchronized double getEnergy(double time) {
+        return getStaticEnergy(time) + getDynamicEnergy(time);
+    }
+
+    /**
+     * Returns the total energy in Joule that was consumed until now.
+     */
+    public double getEnergy() {
+        return getEnergy(simulation.clock());
+    }
+
+    /**
+     * Returns the average power between two points in time.
+     */
+    public synchronized PowerMeasurement getAveragePower(double from, double to) {
+        if (to <= from) {
+            throw new IllegalArgumentException("The end of the interval must be after its start, but was " + from + " to " + to + ".");
+        }
+        double duration = to - from;
+        return new PowerMeasurement((getStaticEnergy(to) - getStaticEnergy(from)) / duration,
+            (getDynamicEnergy(to) - getDynamicEnergy(from)) / duration);
+    }
+
+    /**
+     * Returns the average power of consecutive intervals of the given length, starting at time 0.
+     * The result has the same form as the measurements of a power meter with the same measurement interval.
+     */
+    public List<PowerMeasurement> getAveragePowers(double interval, double until) {
+        List<PowerMeasurement> averagePowers = new ArrayList<>();
+        for (int i = 0; (i + 1) * interval <= until; i++) {
+            averagePowers.add(getAveragePower(i * interval, (i + 1) * interval));
+        }
+        return averagePowers;
+    }
+
+    /**
+     * Returns the number of recorded points in time at which the total power changed.
+     */
+    public synchronized int getChangeCount() {
+        return size;
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public EnergyMeter setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Returns the index of the last change point at or before the given time or -1 if there is none.
+     */
+    private int indexAt(double time) {
+        int i = Arrays.binarySearch(times, 0, size, time);
+        if (i >= 0) {
+            return i;
+        }
+        return -i - 2;
+    }
+
+    private void grow() {
+        int newCapacity = times.length * 2;
+        times = Arrays.copyOf(times, newCapacity);
+        staticEnergies = Arrays.copyOf(staticEnergies, newCapacity);
+        dynamicEnergies = Arrays.copyOf(dynamicEnergies, newCapacity);
+        staticPowers = Arrays.copyOf(staticPowers, newCapacity);
+        dynamicPowers = Arrays.copyOf(dynamicPowers, newCapacity);
+    }
+}
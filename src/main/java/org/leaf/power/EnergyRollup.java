@@ -0,0 +1,103 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.core.Simulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Node of a tree of energy meters, e.g. total, region, type (fog, wifi, wanUp, ...) and single entities.
+ *
+ * Entities are added to the node they should be accounted to. Every power change of an entity is applied as a delta
+ * to that node and all of its ancestors, so each level of the tree always knows its current power and energy without
+ * walking its descendants. Per-entity breakdowns are simply child nodes with a single entity.
+ */
+public class EnergyRollup extends EnergyMeter {
+
+    private final EnergyRollup parent;
+    private final Map<String, EnergyRollup> children = new LinkedHashMap<>();
+
+    /**
+     * Creates the root of a new tree.
+     */
+    public EnergyRollup(Simulation simulation, String name) {
+        this(simulation, name, null);
+    }
+
+    private EnergyRollup(Simulation simulation, String name, EnergyRollup parent) {
+        super(simulation);
+        setName(name);
+        this.parent = parent;
+    }
+
+    /**
+     * Returns the child with the given name, creating it if it does not exist yet.
+     */
+    public synchronized EnergyRollup child(String name) {
+        return children.computeIfAbsent(name, n -> new EnergyRollup(getSimulation(), n, this));
+    }
+
+    /**
+     * Returns the node at the given path below this node, creating missing nodes.
+     */
+    public EnergyRollup child(String... path) {
+        EnergyRollup node = this;
+        for (String name : path) {
+            node = node.child(name);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the child with the given name or null if there is none.
+     */
+    public synchronized EnergyRollup getChild(String name) {
+        return children.get(name);
+    }
+
+    public synchronized Collection<EnergyRollup> getChildren() {
+        return Collections.unmodifiableCollection(new ArrayList<>(children.values()));
+    }
+
+    /**
+     * Returns this node and all of its descendants in depth-first order, e.g. for exporting every level.
+     */
+    public List<EnergyRollup> getNodes() {
+        List<EnergyRollup> nodes = new ArrayList<>();
+        collectNodes(nodes);
+        return nodes;
+    }
+
+    private void collectNodes(List<EnergyRollup> nodes) {
+        nodes.add(this);
+        for (EnergyRollup child : getChildren()) {
+            child.collectNodes(nodes);
+        }
+    }
+
+    /**
+     * Returns the parent node or null if this is the root.
+     */
+    public EnergyRollup getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the names of all nodes from the root to this node, separated by slashes.
+     */
+    public String getPath() {
+        return parent == null ? getName() : parent.getPath() + "/" + getName();
+    }
+
+    @Override
+    void change(double staticDelta, double dynamicDelta) {
+        super.change(staticDelta, dynamicDelta);
+        if (parent != null) {
+            parent.change(staticDelta, dynamicDelta);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+
+/**
+ * Receives the power of a link, host or application whenever it changes.
+ *
+ * @see PowerNotifier
+ */
+@FunctionalInterface
+public interface PowerChangeListener {
+
+    void powerChanged(PowerMeasurement oldPower, PowerMeasurement newPower);
+}
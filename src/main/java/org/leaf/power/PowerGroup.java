@@ -0,0 +1,53 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.power.PowerAware;
+import org.leaf.util.Registry;
+
+import java.util.List;
+
+/**
+ * Group of power-aware entities whose membership is maintained by whoever creates and destroys the entities,
+ * e.g. the infrastructure graph when links are added or removed.
+ *
+ * Power meters read the members through {@link #getMembers()}, so sampling a group only iterates over an array
+ * instead of rebuilding the member list from the infrastructure on every measurement.
+ * Insertion and removal take constant time, and members stay in the order they were added, so summation order and
+ * exported measurements do not depend on which members were removed before.
+ */
+public class PowerGroup<T extends PowerAware<?>> {
+
+    private final Registry<T> members = new Registry<>();
+
+    /**
+     * Adds the entity to the group, does nothing if it is already a member.
+     */
+    public void add(T member) {
+        members.add(member);
+    }
+
+    /**
+     * Removes the entity from the group, does nothing if it is not a member.
+     */
+    public void remove(T member) {
+        members.remove(member);
+    }
+
+    public boolean contains(T member) {
+        return members.contains(member);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public T get(int index) {
+        return members.get(index);
+    }
+
+    /**
+     * Returns a read-only view that reflects all later changes to the group.
+     */
+    public List<T> getMembers() {
+        return members.asList();
+    }
+}
@@ -0,0 +1,13 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+
+/**
+ * Shared measurements, power measurements are immutable.
+ */
+final class PowerMeasurements {
+
+    static final PowerMeasurement ZERO = new PowerMeasurement();
+
+    private PowerMeasurements() {}
+}
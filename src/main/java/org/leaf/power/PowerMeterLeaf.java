@@ -0,0 +1,103 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.core.CloudSimEntity;
+import org.cloudbus.cloudsim.core.Simulation;
+import org.cloudbus.cloudsim.core.events.SimEvent;
+import org.cloudbus.cloudsim.power.PowerAware;
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.leaf.LeafTags.POWER_MEASUREMENT;
+
+/**
+ * Power meter that periodically measures the total power of a group of entities and stores the samples in a
+ * {@link PowerSeries} instead of a list of {@link PowerMeasurement} objects.
+ *
+ * Like the CloudSim power meter, the first sample is taken one measurement interval after the simulation started.
+ */
+public class PowerMeterLeaf extends CloudSimEntity {
+
+    private final Supplier<? extends List<? extends PowerAware<?>>> entitiesSupplier;
+    private double measurementInterval = 1;
+    private PowerSeries powerSeries = PowerSeries.inMemory();
+
+    /**
+     * @param name name of the meter, used as column and series name by exporters and charts
+     * @param entitiesSupplier provides the entities to be measured on every sample
+     */
+    public PowerMeterLeaf(Simulation simulation, String name, Supplier<? extends List<? extends PowerAware<?>>> entitiesSupplier) {
+        super(simulation);
+        setName(name);
+        this.entitiesSupplier = entitiesSupplier;
+    }
+
+    public PowerMeterLeaf(Simulation simulation, String name, List<? extends PowerAware<?>> entities) {
+        this(simulation, name, () -> entities);
+    }
+
+    /**
+     * Measures a group whose membership is maintained while the simulation runs.
+     */
+    public PowerMeterLeaf(Simulation simulation, String name, PowerGroup<?> group) {
+        this(simulation, name, group.getMembers());
+    }
+
+    public PowerMeterLeaf(Simulation simulation, String name, PowerAware<?> entity) {
+        this(simulation, name, List.of(entity));
+    }
+
+    @Override
+    protected void startInternal() {
+        schedule(measurementInterval, POWER_MEASUREMENT);
+    }
+
+    @Override
+    public void processEvent(SimEvent evt) {
+        if (evt.getTag() == POWER_MEASUREMENT) {
+            measure();
+            schedule(measurementInterval, POWER_MEASUREMENT);
+        }
+    }
+
+    private void measure() {
+        double staticPower = 0;
+        double dynamicPower = 0;
+        List<? extends PowerAware<?>> entities = entitiesSupplier.get();
+        for (int i = 0; i < entities.size(); i++) {
+            PowerMeasurement measurement = entities.get(i).getPowerModel().getPowerMeasurement();
+            staticPower += measurement.getStaticPower();
+            dynamicPower += measurement.getDynamicPower();
+        }
+        powerSeries.add(staticPower, dynamicPower);
+    }
+
+    public double getMeasurementInterval() {
+        return measurementInterval;
+    }
+
+    public PowerMeterLeaf setMeasurementInterval(double measurementInterval) {
+        if (measurementInterval <= 0) {
+            throw new IllegalArgumentException("The measurement interval must be greater than 0, but was " + measurementInterval + ".");
+        }
+        this.measurementInterval = measurementInterval;
+        return this;
+    }
+
+    public PowerSeries getPowerSeries() {
+        return powerSeries;
+    }
+
+    /**
+     * Replaces the series the samples are stored in, e.g. with a memory-mapped one. Must be called before the
+     * simulation starts.
+     */
+    public PowerMeterLeaf setPowerSeries(PowerSeries powerSeries) {
+        if (this.powerSeries.size() > 0) {
+            throw new IllegalStateException("Cannot replace the power series of " + getName() + " after measurements were taken.");
+        }
+        this.powerSeries = powerSeries;
+        return this;
+    }
+}
@@ -2,24 +2,39 @@ package org.leaf.power;
 
 import org.cloudbus.cloudsim.power.PowerMeasurement;
 import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelHost;
 import org.leaf.application.Application;
-import org.leaf.application.Task;
+import org.leaf.application.ReservationLedger;
 import org.leaf.host.HostLeaf;
 import org.leaf.infrastructure.NetworkLink;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
 /**
  * Power model that computes the relative power-requirements of an application.
+ *
+ * The power of links and hosts with a proportional power model is split exactly by the reserved bandwidth or MIPS,
+ * so the share of an application does not depend on other applications. These shares are summed up incrementally
+ * whenever the application reserves or releases resources. Only resources with other power models are evaluated
+ * on every measurement, which makes measurements of the usual LEAF power models O(1).
+ * The measurement of the proportional power is cached until the next reservation or release.
  */
 public class PowerModelApplication implements PowerModel {
 
     protected Application application;
 
+    /** Power of all reservations on links and hosts with a proportional power model */
+    private double proportionalPower = 0;
+    /** Reservations on links and hosts whose power model is not proportional */
+    private final ReservationLedger<NetworkLink> otherBandwidth = new ReservationLedger<>();
+    private final ReservationLedger<HostLeaf> otherMips = new ReservationLedger<>();
+    /** Measurement of the proportional power, valid until the next reservation or release */
+    private PowerMeasurement cachedMeasurement = null;
+
     public static PowerModelApplication NULL = new PowerModelApplication(null) {
-        @Override public PowerMeasurement getPowerMeasurement() { return new PowerMeasurement(); }
+        @Override public PowerMeasurement getPowerMeasurement() { return PowerMeasurements.ZERO; }
+        @Override public void bandwidthReserved(NetworkLink link, double bandwidth) {}
+        @Override public void bandwidthReleased(NetworkLink link, double bandwidth) {}
+        @Override public void mipsReserved(HostLeaf host, double mips) {}
+        @Override public void mipsReleased(HostLeaf host, double mips) {}
     };
 
     public PowerModelApplication(final Application application) {
@@ -29,24 +44,93 @@ public class PowerModelApplication implements PowerModel {
     @Override
     public PowerMeasurement getPowerMeasurement() {
         if (!application.isRunning()) {
-            return new PowerMeasurement();
+            return PowerMeasurements.ZERO;
+        }
+        if (cachedMeasurement == null) {
+            cachedMeasurement = new PowerMeasurement(0, proportionalPower);
         }
-        List<PowerMeasurement> measurements = new ArrayList<>();
-        for (Map.Entry<NetworkLink, Double> entry : application.getReservedNetworkMap().entrySet()) {
-            NetworkLink link = entry.getKey();
+        PowerMeasurement measurement = cachedMeasurement;
+        for (int i = 0; i < otherBandwidth.size(); i++) {
+            NetworkLink link = otherBandwidth.getResource(i);
             double usedBandwidthLink = link.getUsedBandwidth();
             if (usedBandwidthLink == 0) continue;
-            double usageFraction = entry.getValue() / usedBandwidthLink;
-            measurements.add(link.getPowerModel().getPowerMeasurement().multiply(usageFraction));
+            double usageFraction = otherBandwidth.getAmount(i) / usedBandwidthLink;
+            measurement = measurement.add(link.getPowerModel().getPowerMeasurement().multiply(usageFraction));
         }
-        for (Task task : application.getGraph().vertexSet()) {
-            HostLeaf host = (HostLeaf) task.getHost();
+        for (int i = 0; i < otherMips.size(); i++) {
+            HostLeaf host = otherMips.getResource(i);
             double usedMipsHost = host.getCpuMipsUtilization();
             if (usedMipsHost == 0) continue;
-            double usageFraction = task.getRequestedMips() / usedMipsHost;
-            measurements.add(host.getPowerModel().getPowerMeasurement().multiply(usageFraction));
+            double usageFraction = otherMips.getAmount(i) / usedMipsHost;
+            measurement = measurement.add(host.getPowerModel().getPowerMeasurement().multiply(usageFraction));
+        }
+        return measurement;
+    }
+
+    /**
+     * Must be called whenever the application reserved bandwidth on a link.
+     */
+    public void bandwidthReserved(NetworkLink link, double bandwidth) {
+        PowerModelNetworkLink linkPowerModel = link.getPowerModel();
+        if (linkPowerModel.isProportional()) {
+            proportionalPower += bandwidth * linkPowerModel.getEnergyPerBit();
+            cachedMeasurement = null;
+        } else {
+            otherBandwidth.add(link, bandwidth);
         }
-        return measurements.stream().reduce(PowerMeasurement::add).orElse(new PowerMeasurement());
+    }
+
+    /**
+     * Must be called whenever the application released bandwidth on a link.
+     */
+    public void bandwidthReleased(NetworkLink link, double bandwidth) {
+        PowerModelNetworkLink linkPowerModel = link.getPowerModel();
+        if (linkPowerModel.isProportional()) {
+            proportionalPower -= bandwidth * linkPowerModel.getEnergyPerBit();
+            cachedMeasurement = null;
+        } else {
+            otherBandwidth.subtract(link, bandwidth);
+        }
+    }
+
+    /**
+     * Must be called whenever the application reserved MIPS on a host.
+     */
+    public void mipsReserved(HostLeaf host, double mips) {
+        PowerModelHost hostPowerModel = host.getPowerModel();
+        if (isProportional(hostPowerModel)) {
+            proportionalPower += mips * ((PowerModelHostShared) hostPowerModel).getWattPerMips();
+            cachedMeasurement = null;
+        } else {
+            otherMips.add(host, mips);
+        }
+    }
+
+    /**
+     * Must be called whenever the application released MIPS on a host.
+     */
+    public void mipsReleased(HostLeaf host, double mips) {
+        PowerModelHost hostPowerModel = host.getPowerModel();
+        if (isProportional(hostPowerModel)) {
+            proportionalPower -= mips * ((PowerModelHostShared) hostPowerModel).getWattPerMips();
+            cachedMeasurement = null;
+        } else {
+            otherMips.subtract(host, mips);
+        }
+    }
+
+    /**
+     * Must be called once the application released all its resources. Discards accumulated rounding errors.
+     */
+    public void reservationsCleared() {
+        proportionalPower = 0;
+        cachedMeasurement = null;
+        otherBandwidth.clear();
+        otherMips.clear();
+    }
+
+    private static boolean isProportional(PowerModelHost hostPowerModel) {
+        return hostPowerModel instanceof PowerModelHostShared && ((PowerModelHostShared) hostPowerModel).isProportional();
     }
 
     public Application getApplication() {
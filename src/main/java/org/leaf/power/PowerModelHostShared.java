@@ -3,6 +3,7 @@ package org.leaf.power;
 import org.cloudbus.cloudsim.hosts.Host;
 import org.cloudbus.cloudsim.power.PowerMeasurement;
 import org.cloudbus.cloudsim.power.models.PowerModelHost;
+import org.leaf.host.HostLeaf;
 
 /**
  * Power model for data center hosts.
@@ -11,6 +12,8 @@ public class PowerModelHostShared extends PowerModelHost {
 
     private Host host;
     private double wattPerMips;
+    private PowerMeasurement cachedMeasurement = null;
+    private long cachedVersion;
 
     /**
      * Instantiates a shared {@link PowerModelHostShared} by specifying its watt per MIPS.
@@ -27,14 +30,41 @@ public class PowerModelHostShared extends PowerModelHost {
 
     public void setHost(Host host) {
         this.host = host;
+        cachedMeasurement = null;
     }
 
+    /**
+     * Returns the current power of the host. For {@link HostLeaf} hosts the measurement is cached until the used MIPS
+     * or the active state of the host change.
+     */
     @Override
     public PowerMeasurement getPowerMeasurement() {
         if(!getHost().isActive()){
-            return new PowerMeasurement();
+            return PowerMeasurements.ZERO;
+        }
+        if (!(host instanceof HostLeaf)) {
+            return new PowerMeasurement(0, host.getCpuMipsUtilization() * wattPerMips);
         }
-        return new PowerMeasurement(0, host.getCpuMipsUtilization() * wattPerMips);
+        long version = ((HostLeaf) host).getVersion();
+        if (cachedMeasurement == null || cachedVersion != version) {
+            double usedMips = host.getCpuMipsUtilization();
+            cachedMeasurement = usedMips == 0 ? PowerMeasurements.ZERO : new PowerMeasurement(0, usedMips * wattPerMips);
+            cachedVersion = version;
+        }
+        return cachedMeasurement;
+    }
+
+    public double getWattPerMips() {
+        return wattPerMips;
+    }
+
+    /**
+     * Returns true if the power of the host always equals its watt per MIPS times its used MIPS while it is active.
+     * Hosts with reserved MIPS are always active, so the power share of each application using the host only
+     * depends on its own reserved MIPS. Subclasses that compute the power differently must return false.
+     */
+    public boolean isProportional() {
+        return true;
     }
 
     /**
@@ -6,14 +6,18 @@ import org.leaf.infrastructure.NetworkLink;
 
 /**
  * Linear power model for network links
+ *
+ * Measurements are immutable and cached until the version of the link changes.
  */
 public class PowerModelNetworkLink implements PowerModel {
 
     public static PowerModelNetworkLink NULL = new PowerModelNetworkLink(0) {
-        @Override public PowerMeasurement getPowerMeasurement() { return new PowerMeasurement(); }
+        @Override public PowerMeasurement getPowerMeasurement() { return PowerMeasurements.ZERO; }
     };
 
     private double energyPerBit;
+    private PowerMeasurement cachedMeasurement = null;
+    private long cachedVersion;
 
     public PowerModelNetworkLink(final double energyPerBit) {
         this.energyPerBit = energyPerBit;
@@ -27,15 +31,46 @@ public class PowerModelNetworkLink implements PowerModel {
 
     public void setLink(NetworkLink link) {
         this.link = link;
+        cachedMeasurement = null;
     }
 
     @Override
     public PowerMeasurement getPowerMeasurement() {
-        return new PowerMeasurement(0, energyPerBit * getLink().getUsedBandwidth());
+        long version = getLink().getVersion();
+        if (cachedMeasurement == null || cachedVersion != version || !isCacheValid()) {
+            cachedMeasurement = computePowerMeasurement();
+            cachedVersion = version;
+        }
+        return cachedMeasurement;
+    }
+
+    /**
+     * Computes the current power of the link, called if there is no valid cached measurement.
+     */
+    protected PowerMeasurement computePowerMeasurement() {
+        double usedBandwidth = getLink().getUsedBandwidth();
+        if (usedBandwidth == 0) return PowerMeasurements.ZERO;
+        return new PowerMeasurement(0, energyPerBit * usedBandwidth);
+    }
+
+    /**
+     * Allows subclasses whose power depends on more than the link itself to discard the cached measurement.
+     */
+    protected boolean isCacheValid() {
+        return true;
     }
 
     public double getEnergyPerBit() {
         return energyPerBit;
     }
 
+    /**
+     * Returns true if the power of the link always equals its energy per bit times its used bandwidth.
+     * The power share of each application using the link then only depends on its own reserved bandwidth.
+     * Subclasses that compute the power differently must return false.
+     */
+    public boolean isProportional() {
+        return true;
+    }
+
 }
@@ -14,27 +14,88 @@ public class PowerModelNetworkLinkWifi extends PowerModelNetworkLink {
     // amplifier energy dissipation in free space channel (Joul per bit per square meter : J/bit/m^2)
     private final double amplifierDissipation;
 
+    /** Endpoints, time step and locations of the last location lookup */
+    private SimEntity locatedSrc = null;
+    private SimEntity locatedDst = null;
+    private double locatedTime = Double.NaN;
+    private Location srcLocation = null;
+    private Location dstLocation = null;
+    private double distanceSquared;
+    /** Squared distance the cached measurement was computed for, NaN if no bandwidth was used */
+    private double measuredDistanceSquared = Double.NaN;
+
     public PowerModelNetworkLinkWifi(final double energyPerBit,
                                      final double amplifierDissipation) {
         super(energyPerBit);
         this.amplifierDissipation = amplifierDissipation;
     }
 
+    /**
+     * The cached measurement is only valid as long as the distance between sender and receiver does not change.
+     */
     @Override
-    public PowerMeasurement getPowerMeasurement() {
-        return computePowerUsage(getLink().getUsedBandwidth());
+    protected boolean isCacheValid() {
+        if (Double.isNaN(measuredDistanceSquared)) return true;  // no bandwidth used, the distance does not matter
+        updateLocations();
+        return measuredDistanceSquared == distanceSquared;
+    }
+
+    @Override
+    protected PowerMeasurement computePowerMeasurement() {
+        double usedBandwidth = getLink().getUsedBandwidth();
+        if (usedBandwidth == 0) {
+            measuredDistanceSquared = Double.NaN;
+            return PowerMeasurements.ZERO;
+        }
+        updateLocations();
+        measuredDistanceSquared = distanceSquared;
+        return new PowerMeasurement(0, computeDynamicPower(usedBandwidth, distanceSquared));
+    }
+
+    /**
+     * The energy per bit depends on the distance between sender and receiver, which may change over time.
+     */
+    @Override
+    public boolean isProportional() {
+        return false;
     }
 
     public PowerMeasurement computePowerUsage(double usedBandwidth) {
         if (usedBandwidth == 0) return new PowerMeasurement();
+        updateLocations();
+        return new PowerMeasurement(0, computeDynamicPower(usedBandwidth, distanceSquared));
+    }
+
+    private double computeDynamicPower(double usedBandwidth, double distanceSquared) {
+        return (getEnergyPerBit() + amplifierDissipation * distanceSquared) * usedBandwidth;
+    }
 
-        Location srcLocation = getEntityLocation(getLink().getSrc());
-        Location dstLocation = getEntityLocation(getLink().getDst());
-        double distance = Math.sqrt(Math.pow((srcLocation.getX() - dstLocation.getX()), 2)
-            + Math.pow((srcLocation.getY() - dstLocation.getY()), 2));
+    /**
+     * Looks up the locations of sender and receiver at most once per simulation time step, or again if the endpoints
+     * of the link were replaced. The distance is only recomputed if one of the endpoints moved, i.e. returned another
+     * location, so links between stationary entities keep it for the whole simulation.
+     */
+    private void updateLocations() {
+        SimEntity src = getLink().getSrc();
+        SimEntity dst = getLink().getDst();
+        double time = src.getSimulation().clock();
+        if (time == locatedTime && src == locatedSrc && dst == locatedDst) return;
+        Location newSrcLocation = getEntityLocation(src);
+        Location newDstLocation = getEntityLocation(dst);
+        if (newSrcLocation != srcLocation || newDstLocation != dstLocation) {
+            double dx = newSrcLocation.getX() - newDstLocation.getX();
+            double dy = newSrcLocation.getY() - newDstLocation.getY();
+            distanceSquared = dx * dx + dy * dy;
+            srcLocation = newSrcLocation;
+            dstLocation = newDstLocation;
+        }
+        locatedSrc = src;
+        locatedDst = dst;
+        locatedTime = time;
+    }
 
-        double dissipationEnergyPerBit = amplifierDissipation * Math.pow(distance, 2);
-        return new PowerMeasurement(0, (getEnergyPerBit() + dissipationEnergyPerBit) * usedBandwidth);
+    public double getAmplifierDissipation() {
+        return amplifierDissipation;
     }
 
     private Location getEntityLocation(SimEntity entity) {
@@ -0,0 +1,85 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Notifies listeners whenever the power of a link, host or application changes.
+ *
+ * Entities call {@link #powerChanged()} after every change that may affect their power. The power is only computed
+ * if there are listeners, so entities nobody listens to do not pay for the notifications.
+ *
+ * Notifications take no locks: the last notified power is replaced via compare-and-set, and the thread that replaced
+ * it computes the power again until it no longer changes. Listeners may therefore be notified concurrently and in any
+ * order, but the differences they receive always add up to the current power.
+ */
+public class PowerNotifier {
+
+    private final Supplier<PowerMeasurement> powerSupplier;
+    private final List<PowerChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /** Power the listeners were last notified about, only set if there are listeners */
+    private final AtomicReference<PowerMeasurement> power = new AtomicReference<>();
+
+    /**
+     * @param powerSupplier computes the current power of the entity, usually via its power model
+     */
+    public PowerNotifier(Supplier<PowerMeasurement> powerSupplier) {
+        this.powerSupplier = powerSupplier;
+    }
+
+    public synchronized void addListener(PowerChangeListener listener) {
+        if (listeners.isEmpty()) {
+            power.set(powerSupplier.get());
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * @return false if the listener was not registered
+     */
+    public synchronized boolean removeListener(PowerChangeListener listener) {
+        boolean removed = listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            power.set(null);
+        }
+        return removed;
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Returns the current power of the entity.
+     */
+    public PowerMeasurement getPower() {
+        PowerMeasurement notifiedPower = power.get();
+        return notifiedPower != null ? notifiedPower : powerSupplier.get();
+    }
+
+    /**
+     * Must be called whenever the power of the entity may have changed.
+     */
+    public void powerChanged() {
+        if (listeners.isEmpty()) return;
+        while (true) {
+            PowerMeasurement oldPower = power.get();
+            if (oldPower == null) return;
+            PowerMeasurement newPower = powerSupplier.get();
+            if (newPower == oldPower || (newPower.getStaticPower() == oldPower.getStaticPower()
+                && newPower.getDynamicPower() == oldPower.getDynamicPower())) {
+                return;
+            }
+            if (power.compareAndSet(oldPower, newPower)) {
+                for (PowerChangeListener listener : listeners) {
+                    listener.powerChanged(oldPower, newPower);
+                }
+                // Another thread may have changed the entity after the power was computed and seen no change, so check again
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.leaf.power;
+
+/**
+ * Entity that reports changes of its power to listeners instead of having to be sampled.
+ */
+public interface PowerObservable {
+
+    PowerNotifier getPowerNotifier();
+}
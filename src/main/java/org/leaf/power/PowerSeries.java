@@ -0,0 +1,241 @@
+package org.leaf.power;
+
+import org.cloudbus.cloudsim.power.PowerMeasurement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only series of power measurements stored in two primitive columns, one for the static and one for the
+ * dynamic power, instead of one {@link PowerMeasurement} object per sample.
+ *
+ * By default the columns are growable arrays on the heap. For very long or very fine-grained runs they can be backed
+ * by a memory-mapped file instead, which is mapped in fixed-size chunks so growing never copies existing samples.
+ * Exporters and charts read the samples through {@link View views}, which do not copy anything.
+ */
+public class PowerSeries implements Closeable {
+
+    private final Column staticPowers;
+    private final Column dynamicPowers;
+    private final FileChannel channel;
+    private int size = 0;
+
+    private PowerSeries(Column staticPowers, Column dynamicPowers, FileChannel channel) {
+        this.staticPowers = staticPowers;
+        this.dynamicPowers = dynamicPowers;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a series that keeps its samples in arrays on the heap.
+     */
+    public static PowerSeries inMemory() {
+        return new PowerSeries(new HeapColumn(), new HeapColumn(), null);
+    }
+
+    /**
+     * Creates a series that keeps its samples in a memory-mapped file, which is created or truncated.
+     * The static and dynamic columns are stored in alternating chunks of native byte order doubles.
+     */
+    public static PowerSeries mapped(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new PowerSeries(new MappedColumn(channel, 0), new MappedColumn(channel, 1), channel);
+    }
+
+    public void add(double staticPower, double dynamicPower) {
+        staticPowers.set(size, staticPower);
+        dynamicPowers.set(size, dynamicPower);
+        size++;
+    }
+
+    public void add(PowerMeasurement measurement) {
+        add(measurement.getStaticPower(), measurement.getDynamicPower());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getStaticPower(int index) {
+        checkIndex(index);
+        return staticPowers.get(index);
+    }
+
+    public double getDynamicPower(int index) {
+        checkIndex(index);
+        return dynamicPowers.get(index);
+    }
+
+    public double getTotalPower(int index) {
+        return getStaticPower(index) + getDynamicPower(index);
+    }
+
+    /**
+     * Returns a view on all samples added so far.
+     */
+    public View view() {
+        return view(0, size);
+    }
+
+    /**
+     * Returns a view on the samples from the first (inclusive) to the last index (exclusive).
+     * Samples added later do not become part of the view.
+     */
+    public View view(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range " + from + " to " + to + " of " + size + " samples.");
+        }
+        return new View(from, to);
+    }
+
+    /**
+     * Releases the file of a memory-mapped series. Samples that were already added remain readable.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size + " samples.");
+        }
+    }
+
+    /**
+     * Read-only window on a range of samples, backed by the columns of the series.
+     */
+    public class View {
+
+        private final int from;
+        private final int to;
+
+        private View(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        public double getStaticPower(int index) {
+            return staticPowers.get(from + checkViewIndex(index));
+        }
+
+        public double getDynamicPower(int index) {
+            return dynamicPowers.get(from + checkViewIndex(index));
+        }
+
+        public double getTotalPower(int index) {
+            return getStaticPower(index) + getDynamicPower(index);
+        }
+
+        /**
+         * Returns the largest total power in the view or 0 if it is empty.
+         */
+        public double getMaxTotalPower() {
+            double max = 0;
+            for (int i = from; i < to; i++) {
+                max = Math.max(max, staticPowers.get(i) + dynamicPowers.get(i));
+            }
+            return max;
+        }
+
+        /**
+         * Copies the total power of all samples into an array, e.g. for charting libraries that need one.
+         */
+        public double[] toTotalPowerArray() {
+            double[] totalPowers = new double[size()];
+            for (int i = from; i < to; i++) {
+                totalPowers[i - from] = staticPowers.get(i) + dynamicPowers.get(i);
+            }
+            return totalPowers;
+        }
+
+        private int checkViewIndex(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of " + size() + " samples.");
+            }
+            return index;
+        }
+    }
+
+    private interface Column {
+        double get(int index);
+        void set(int index, double value);
+    }
+
+    private static class HeapColumn implements Column {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        public double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, double value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, index + 1));
+            }
+            values[index] = value;
+        }
+    }
+
+    private static class MappedColumn implements Column {
+
+        private static final int CHUNK_SHIFT = 20;  // 1M doubles (8 MiB) per chunk
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        private static final long CHUNK_BYTES = (long) CHUNK_SIZE * Double.BYTES;
+
+        private final FileChannel channel;
+        /** Position of this column within each pair of chunks */
+        private final int columnIndex;
+        private final List<DoubleBuffer> chunks = new ArrayList<>();
+
+        MappedColumn(FileChannel channel, int columnIndex) {
+            this.channel = channel;
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public double get(int index) {
+            return chunks.get(index >>> CHUNK_SHIFT).get(index & CHUNK_MASK);
+        }
+
+        @Override
+        public void set(int index, double value) {
+            int chunk = index >>> CHUNK_SHIFT;
+            while (chunk >= chunks.size()) {
+                chunks.add(map(chunks.size()));
+            }
+            chunks.get(chunk).put(index & CHUNK_MASK, value);
+        }
+
+        private DoubleBuffer map(int chunk) {
+            long position = (2L * chunk + columnIndex) * CHUNK_BYTES;
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map power measurements to file.", e);
+            }
+        }
+    }
+}
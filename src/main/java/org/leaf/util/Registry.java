@@ -0,0 +1,163 @@
+package org.leaf.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Set of objects, compared by identity, that keeps the order in which they were added.
+ *
+ * Adding, removing and membership checks take constant time. A removed element leaves an empty slot behind, and the
+ * remaining elements are moved together, in their order, before the next indexed access or once more than half of
+ * the slots are empty. Unlike moving the last element into the freed slot, the order therefore never depends on
+ * which elements were removed before.
+ *
+ * Registries are not thread-safe.
+ */
+public class Registry<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] slots = new Object[INITIAL_CAPACITY];
+    /** Number of used slots, including empty ones */
+    private int used = 0;
+    private int emptySlots = 0;
+    /** No element is stored before this slot */
+    private int head = 0;
+    private final Map<T, Integer> positions = new IdentityHashMap<>();
+    private final List<T> view = new ElementList();
+
+    /**
+     * Adds the element at the end, does nothing if it is already registered.
+     *
+     * @return true if the element was added
+     */
+    public boolean add(T element) {
+        if (positions.putIfAbsent(element, used) != null) return false;
+        if (used == slots.length) {
+            if (emptySlots > 0) {
+                compact();
+                positions.put(element, used);
+            } else {
+                slots = Arrays.copyOf(slots, used * 2);
+            }
+        }
+        slots[used++] = element;
+        return true;
+    }
+
+    /**
+     * Removes the element, does nothing if it is not registered.
+     *
+     * @return true if the element was removed
+     */
+    public boolean remove(T element) {
+        Integer position = positions.remove(element);
+        if (position == null) return false;
+        slots[position] = null;
+        emptySlots++;
+        if (emptySlots > used / 2) {
+            compact();
+        } else if (position == head) {
+            while (head < used && slots[head] == null) head++;
+        }
+        return true;
+    }
+
+    public boolean contains(T element) {
+        return positions.containsKey(element);
+    }
+
+    public int size() {
+        return used - emptySlots;
+    }
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    /**
+     * Returns the element that was added first, or null if the registry is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T first() {
+        return head < used ? (T) slots[head] : null;
+    }
+
+    /**
+     * Returns the element at the given position in the order in which the elements were added.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (emptySlots > 0) {
+            compact();
+        }
+        if (index < 0 || index >= used) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + used + " elements.");
+        }
+        return (T) slots[index];
+    }
+
+    /**
+     * Returns a read-only view that reflects all later changes to the registry.
+     */
+    public List<T> asList() {
+        return view;
+    }
+
+    /**
+     * Returns a new list of all elements in the order they were added, which callers may modify.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> snapshot() {
+        List<T> snapshot = new ArrayList<>(size());
+        for (int i = head; i < used; i++) {
+            if (slots[i] != null) {
+                snapshot.add((T) slots[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0, used, null);
+        positions.clear();
+        used = 0;
+        emptySlots = 0;
+        head = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int size = 0;
+        for (int i = head; i < used; i++) {
+            Object element = slots[i];
+            if (element != null) {
+                slots[size] = element;
+                positions.put((T) element, size);
+                size++;
+            }
+        }
+        Arrays.fill(slots, size, used, null);
+        used = size;
+        emptySlots = 0;
+        head = 0;
+    }
+
+    private class ElementList extends AbstractList<T> implements RandomAccess {
+
+        @Override
+        public T get(int index) {
+            return Registry.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return Registry.this.size();
+        }
+    }
+}